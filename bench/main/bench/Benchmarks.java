@@ -0,0 +1,42 @@
+package main.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+/**
+ * Runs the benchmark suite with the GC profiler attached, so every result is
+ * reported with its allocation rate ({@code gc.alloc.rate.norm} is bytes
+ * allocated per operation) next to the throughput.
+ * <p>
+ * Usage: {@code Benchmarks [regex]}, where the optional regex selects
+ * benchmarks by name, e.g. {@code Pricing} or {@code Export.exportTo}.
+ * </p>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * @param args optional benchmark name regex
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "main\\.bench\\..*")
+                .addProfiler(GCProfiler.class)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .build();
+        new Runner(options).run();
+    }
+}
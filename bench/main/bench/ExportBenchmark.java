@@ -0,0 +1,57 @@
+package main.bench;
+
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.StoreOrders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+/**
+ * Measures exporting a day of placed orders, both as one String
+ * ({@link StoreOrders#export()}) and streamed to a writer
+ * ({@link StoreOrders#exportTo(Writer)}) that discards the text.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+    /** Number of placed orders in the store. */
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    private StoreOrders store;
+
+    /** Places the orders, each with one to three items. */
+    @Setup
+    public void setUp() {
+        store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(4096);
+        for (int i = 0; i < orders; i++) {
+            Order o = new Order(numbers);
+            for (int j = 0; j <= i % 3; j++) o.addItem(OrderBenchmark.item(i + j));
+            store.addOrder(o);
+        }
+    }
+
+    /** @return the export text */
+    @Benchmark
+    public String export() {
+        return store.export();
+    }
+
+    /**
+     * Streams the export, so only formatting and not the final String is
+     * measured.
+     *
+     * @throws IOException never; the writer discards everything
+     */
+    @Benchmark
+    public void exportTo() throws IOException {
+        store.exportTo(Writer.nullWriter());
+    }
+}
@@ -0,0 +1,74 @@
+package main.bench;
+
+import main.model.Order;
+import main.model.OrderJournal;
+import main.model.OrderNumbers;
+import main.model.StoreOrders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+/**
+ * Measures replaying a journal of a day of placed orders into an empty
+ * store, which is what a register waits for on every start.
+ * Reported as the time to replay the whole journal.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JournalBenchmark {
+    /** Number of placed orders in the journal. */
+    @Param({"10000", "100000"})
+    public int orders;
+
+    private Path file;
+
+    /**
+     * Journals the orders, each with one to three items.
+     *
+     * @throws Exception if the journal cannot be written
+     */
+    @Setup
+    public void setUp() throws Exception {
+        file = Files.createTempFile("orders", ".journal");
+        StoreOrders store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(4096);
+        try (OrderJournal journal = OrderJournal.recover(file, store)) {
+            store.addListener(journal);
+            for (int i = 0; i < orders; i++) {
+                Order o = new Order(numbers);
+                for (int j = 0; j <= i % 3; j++) o.addItem(OrderBenchmark.item(i + j));
+                store.addOrder(o);
+            }
+            journal.flushed().get();
+        }
+    }
+
+    /**
+     * @throws IOException if the journal cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * @return the restored store
+     * @throws IOException if the journal cannot be read
+     */
+    @Benchmark
+    public StoreOrders replay() throws IOException {
+        StoreOrders restored = new StoreOrders();
+        OrderJournal.recover(file, restored).close();
+        return restored;
+    }
+}
@@ -0,0 +1,197 @@
+package main.bench;
+
+import main.model.Kitchen;
+import main.model.Order;
+import main.model.OrderNumbers;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * Simulates a shift in the {@link Kitchen} at one or more customer arrival
+ * rates, to show how many orders an hour the stations keep up with and
+ * where backpressure starts turning customers away.
+ * <p>
+ * Customers arrive at random (a Poisson process) with random orders from
+ * the real menu and are turned away, or wait up to {@code wait} seconds,
+ * when a station is full. Simulated cooks take each station's tickets and
+ * work on them for the estimated prep time give or take a third, so the
+ * schedule is never quite right. The shift runs {@code speedup} times
+ * faster than real time. For each rate one line reports, in simulated
+ * time: orders taken and turned away, order times, how far apart each
+ * order's tickets finished, each station's worst waits and deepest queue.
+ * </p>
+ * <p>
+ * Usage: {@code KitchenSimulation [rates=30,60,90,120] [minutes=30]
+ * [speedup=120] [capacity=20] [case=1] [bar=2] [grill=2] [items=3]
+ * [wait=0] [seed=1]}, where {@code rates} are customers per hour and
+ * {@code case}, {@code bar} and {@code grill} the cooks at each station.
+ * See {@code bench/run-kitchen.sh}.
+ * </p>
+ */
+public final class KitchenSimulation {
+
+    private final long minutes;
+    private final double speedup;
+    private final int capacity;
+    private final Map<Kitchen.Station, Integer> cooks;
+    private final int maxItems;
+    private final long waitSeconds;
+    private final long seed;
+
+    private KitchenSimulation(long minutes, double speedup, int capacity, Map<Kitchen.Station, Integer> cooks,
+                              int maxItems, long waitSeconds, long seed) {
+        if (minutes < 1 || maxItems < 1 || waitSeconds < 0) {
+            throw new IllegalArgumentException("minutes and items must be positive and wait non-negative");
+        }
+        this.minutes = minutes;
+        this.speedup = speedup;
+        this.capacity = capacity;
+        this.cooks = cooks;
+        this.maxItems = maxItems;
+        this.waitSeconds = waitSeconds;
+        this.seed = seed;
+    }
+
+    /**
+     * @param args {@code name=value} settings, see the class comment
+     * @throws InterruptedException if interrupted while the shift runs
+     */
+    public static void main(String[] args) throws InterruptedException {
+        List<Double> rates = List.of(30.0, 60.0, 90.0, 120.0);
+        long minutes = 30, wait = 0, seed = 1;
+        double speedup = 120;
+        int capacity = Kitchen.DEFAULT_CAPACITY, items = 3;
+        Map<Kitchen.Station, Integer> cooks = new EnumMap<>(Kitchen.Station.class);
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("expected name=value: " + arg);
+            switch (kv[0]) {
+                case "rates" -> {
+                    List<Double> parsed = new ArrayList<>();
+                    for (String r : kv[1].split(",")) parsed.add(Double.parseDouble(r));
+                    rates = parsed;
+                }
+                case "minutes" -> minutes = Long.parseLong(kv[1]);
+                case "speedup" -> speedup = Double.parseDouble(kv[1]);
+                case "capacity" -> capacity = Integer.parseInt(kv[1]);
+                case "case" -> cooks.put(Kitchen.Station.CASE, Integer.parseInt(kv[1]));
+                case "bar" -> cooks.put(Kitchen.Station.BAR, Integer.parseInt(kv[1]));
+                case "grill" -> cooks.put(Kitchen.Station.GRILL, Integer.parseInt(kv[1]));
+                case "items" -> items = Integer.parseInt(kv[1]);
+                case "wait" -> wait = Long.parseLong(kv[1]);
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                default -> throw new IllegalArgumentException("unknown setting: " + kv[0]);
+            }
+        }
+        KitchenSimulation sim = new KitchenSimulation(minutes, speedup, capacity, cooks, items, wait, seed);
+        System.out.printf("%d-minute shifts at %.0fx, %d tickets per station, cooks %s, up to %d items, %s%n",
+                minutes, speedup, capacity, sim.staffing(), items,
+                wait == 0 ? "customers leave if the kitchen is full" : "customers wait up to " + wait + " s");
+        System.out.println("  cust/h   taken  away% taken/h   order p50/p99 (s)   spread p50/p99 (s)"
+                + "   wait p99 (s) case/bar/grill   max depth");
+        for (double rate : rates) sim.run(rate);
+    }
+
+    private String staffing() {
+        StringBuilder sb = new StringBuilder();
+        for (Kitchen.Station s : Kitchen.Station.values()) {
+            sb.append(sb.length() == 0 ? "" : "/").append(cooks.getOrDefault(s, s.getDefaultCooks()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs one shift at an arrival rate and prints its line.
+     *
+     * @param perHour customers per simulated hour
+     * @throws InterruptedException if interrupted
+     */
+    private void run(double perHour) throws InterruptedException {
+        Kitchen kitchen = new Kitchen(capacity, cooks, speedup);
+
+        List<Thread> staff = new ArrayList<>();
+        for (Kitchen.Station station : Kitchen.Station.values()) {
+            for (int i = 0; i < cooks.getOrDefault(station, station.getDefaultCooks()); i++) {
+                long cookSeed = seed * 31 + staff.size();
+                Thread t = new Thread(() -> cook(kitchen, station, cookSeed), "cook-" + station + "-" + i);
+                t.setDaemon(true);
+                staff.add(t);
+                t.start();
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        OrderNumbers.Block numbers = OrderNumbers.reserve(1024);
+        Map<Kitchen.Station, Integer> maxDepth = new EnumMap<>(Kitchen.Station.class);
+        long meanGap = (long) (3600e9 / perHour / speedup);
+        long start = System.nanoTime();
+        long end = start + (long) (minutes * 60e9 / speedup);
+        int taken = 0, away = 0;
+        for (long next = start + gap(random, meanGap); next < end; next += gap(random, meanGap)) {
+            long now = System.nanoTime();
+            if (next > now) LockSupport.parkNanos(next - now);
+            Order order = new Order(numbers);
+            int items = 1 + random.nextInt(maxItems);
+            for (int i = 0; i < items; i++) order.addItem(LoadGenerator.randomItem(random));
+            boolean ok = waitSeconds == 0 ? kitchen.trySubmit(order)
+                    : kitchen.submit(order, (long) (waitSeconds * 1e9 / speedup), TimeUnit.NANOSECONDS);
+            if (ok) taken++;
+            else away++;
+            for (Kitchen.Station s : Kitchen.Station.values()) maxDepth.merge(s, kitchen.depth(s), Math::max);
+        }
+
+        // Let the kitchen finish what it took, then end the shift
+        long closing = System.nanoTime() + (long) (3 * 3600e9 / speedup);
+        while (kitchen.orderTimes().getCount() < taken && System.nanoTime() < closing) {
+            Thread.sleep(10);
+        }
+        for (Thread t : staff) t.interrupt();
+        for (Thread t : staff) t.join();
+
+        System.out.printf("  %6.0f  %6d  %5.1f  %6.0f   %7.0f / %-7.0f     %6.0f / %-6.0f     %5.0f / %5.0f / %-5.0f    %s%n",
+                perHour, taken, 100.0 * away / Math.max(1, taken + away), taken * 60.0 / minutes,
+                simSeconds(kitchen.orderTimes().percentileNanos(0.5)),
+                simSeconds(kitchen.orderTimes().percentileNanos(0.99)),
+                simSeconds(kitchen.finishSpread().percentileNanos(0.5)),
+                simSeconds(kitchen.finishSpread().percentileNanos(0.99)),
+                simSeconds(kitchen.waitTimes(Kitchen.Station.CASE).percentileNanos(0.99)),
+                simSeconds(kitchen.waitTimes(Kitchen.Station.BAR).percentileNanos(0.99)),
+                simSeconds(kitchen.waitTimes(Kitchen.Station.GRILL).percentileNanos(0.99)),
+                maxDepth.values());
+    }
+
+    /**
+     * Works a station until interrupted: takes each due ticket and spends
+     * its estimated prep time, give or take a third, on it.
+     */
+    private static void cook(Kitchen kitchen, Kitchen.Station station, long cookSeed) {
+        SplittableRandom random = new SplittableRandom(cookSeed);
+        try {
+            while (true) {
+                Kitchen.Ticket t = kitchen.take(station);
+                long prep = (long) (t.getPrepNanos() * random.nextDouble(2.0 / 3, 4.0 / 3));
+                long until = System.nanoTime() + prep;
+                for (long left = prep; left > 0; left = until - System.nanoTime()) {
+                    LockSupport.parkNanos(left);
+                    if (Thread.interrupted()) return;
+                }
+                kitchen.done(t);
+            }
+        } catch (InterruptedException e) {
+            // end of shift
+        }
+    }
+
+    private static long gap(SplittableRandom random, long meanGap) {
+        return (long) (-Math.log(1 - random.nextDouble()) * meanGap);
+    }
+
+    private double simSeconds(long nanos) {
+        return nanos * speedup / 1e9;
+    }
+}
@@ -0,0 +1,252 @@
+package main.bench;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.metrics.Histogram;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.MenuItem;
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.Sandwich;
+import main.model.StoreOrders;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+/**
+ * Headless load generator for the order model: several simulated registers
+ * build random orders from the real menu and place them into one shared
+ * {@link StoreOrders}, cancelling some of them again, at a target rate.
+ * <p>
+ * It prints progress every second and, at the end, the achieved throughput,
+ * place and cancel latency percentiles, and how much the heap grew per
+ * order still held by the store, so runs at increasing rates and register
+ * counts show where the model stops keeping up. Given several register
+ * counts, e.g. {@code registers=1,2,4,8}, it runs each in turn on a fresh
+ * store and ends with a table of placement throughput per count.
+ * </p>
+ * <p>
+ * Usage: {@code LoadGenerator [registers=4] [rate=0] [seconds=10]
+ * [items=3] [cancel=5] [seed=1]}, where {@code registers} is one count or
+ * a comma-separated list, {@code rate} is the target orders
+ * per second across all registers (0 for as fast as possible), {@code items}
+ * the most items in one order and {@code cancel} the percentage of orders
+ * cancelled. See {@code bench/run-load.sh}.
+ * </p>
+ */
+public final class LoadGenerator {
+
+    private final int registers;
+    private final double rate;
+    private final long durationNanos;
+    private final int maxItems;
+    private final int cancelPercent;
+    private final long seed;
+
+    private final StoreOrders store = new StoreOrders();
+    private final Histogram placeTime = new Histogram("load.place");
+    private final Histogram cancelTime = new Histogram("load.cancel");
+    private final LongAdder placed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder behind = new LongAdder();
+
+    private LoadGenerator(int registers, double rate, long seconds, int maxItems, int cancelPercent, long seed) {
+        if (registers < 1 || rate < 0 || seconds < 1 || maxItems < 1 || cancelPercent < 0 || cancelPercent > 100) {
+            throw new IllegalArgumentException("registers, seconds and items must be positive, rate non-negative"
+                    + " and cancel a percentage");
+        }
+        this.registers = registers;
+        this.rate = rate;
+        this.durationNanos = seconds * 1_000_000_000L;
+        this.maxItems = maxItems;
+        this.cancelPercent = cancelPercent;
+        this.seed = seed;
+    }
+
+    /**
+     * @param args {@code name=value} settings, see the class comment
+     * @throws InterruptedException if interrupted while waiting for registers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int[] registers = {4};
+        int items = 3, cancel = 5;
+        double rate = 0;
+        long seconds = 10, seed = 1;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("expected name=value: " + arg);
+            switch (kv[0]) {
+                case "registers" -> registers = Arrays.stream(kv[1].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "rate" -> rate = Double.parseDouble(kv[1]);
+                case "seconds" -> seconds = Long.parseLong(kv[1]);
+                case "items" -> items = Integer.parseInt(kv[1]);
+                case "cancel" -> cancel = Integer.parseInt(kv[1]);
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                default -> throw new IllegalArgumentException("unknown setting: " + kv[0]);
+            }
+        }
+        double[] throughput = new double[registers.length];
+        for (int i = 0; i < registers.length; i++) {
+            if (i > 0) System.out.println();
+            throughput[i] = new LoadGenerator(registers[i], rate, seconds, items, cancel, seed).run();
+        }
+        if (registers.length > 1) {
+            System.out.printf("%nregisters  orders/s%n");
+            for (int i = 0; i < registers.length; i++) {
+                System.out.printf("%9d  %,9.0f%n", registers[i], throughput[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs the registers for the duration and prints the results.
+     *
+     * @return orders placed per second across all registers
+     * @throws InterruptedException if interrupted while waiting for registers
+     */
+    private double run() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("%d register(s), target %s, %d s, up to %d items, %d%% cancelled%n",
+                registers, rate > 0 ? String.format("%,.0f orders/s", rate) : "unlimited",
+                durationNanos / 1_000_000_000L, maxItems, cancelPercent);
+
+        long start = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(registers);
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < registers; r++) {
+            long registerSeed = seed * 31 + r;
+            Thread t = new Thread(() -> {
+                try {
+                    register(registerSeed, start);
+                } finally {
+                    done.countDown();
+                }
+            }, "register-" + r);
+            threads.add(t);
+            t.start();
+        }
+
+        long lastPlaced = 0;
+        while (!done.await(1, TimeUnit.SECONDS)) {
+            long now = placed.sum();
+            System.out.printf("  %5.1f s  %,10d placed  %,9d orders/s  heap %,6d MB%n",
+                    (System.nanoTime() - start) / 1e9, now, now - lastPlaced,
+                    memory.getHeapMemoryUsage().getUsed() >> 20);
+            lastPlaced = now;
+        }
+        for (Thread t : threads) t.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        long live = store.size();
+        System.out.printf("placed %,d orders in %.1f s: %,.0f orders/s%s%n", placed.sum(), seconds,
+                placed.sum() / seconds, behind.sum() > 0
+                        ? String.format(" (fell behind the target %,d times)", behind.sum()) : "");
+        System.out.printf("cancelled %,d; %,d orders held by the store%n", cancelled.sum(), live);
+        printLatency("place", placeTime);
+        printLatency("cancel", cancelTime);
+        System.out.printf("heap %,d MB -> %,d MB after GC: %,d bytes per held order%n",
+                heapBefore >> 20, heapAfter >> 20, live == 0 ? 0 : (heapAfter - heapBefore) / live);
+        return placed.sum() / seconds;
+    }
+
+    private static void printLatency(String what, Histogram h) {
+        System.out.printf("%-6s latency us: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f  (%,d samples)%n",
+                what, h.percentileNanos(0.5) / 1e3, h.percentileNanos(0.9) / 1e3, h.percentileNanos(0.99) / 1e3,
+                h.percentileNanos(0.999) / 1e3, h.getMaxMillis() * 1e3, h.getCount());
+    }
+
+    /**
+     * Runs one register until the duration is up: builds an order, places
+     * it, and now and then cancels one of its recent orders, pacing itself
+     * to its share of the target rate.
+     *
+     * @param registerSeed seed for this register's choices
+     * @param start        {@link System#nanoTime()} when the run started
+     */
+    private void register(long registerSeed, long start) {
+        SplittableRandom random = new SplittableRandom(registerSeed);
+        OrderNumbers.Block numbers = OrderNumbers.reserve(1024);
+        long interval = rate > 0 ? (long) (1e9 * registers / rate) : 0;
+        int[] recent = new int[256];
+        int recentCount = 0;
+        long end = start + durationNanos;
+        long next = start;
+        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            if (interval > 0) {
+                if (now < next) {
+                    LockSupport.parkNanos(next - now);
+                } else if (now - next > interval) {
+                    behind.increment();
+                    next = now; // do not try to catch up in a burst
+                }
+                next += interval;
+            }
+
+            Order order = new Order(numbers);
+            int items = 1 + random.nextInt(maxItems);
+            for (int i = 0; i < items; i++) order.addItem(randomItem(random));
+            long t0 = System.nanoTime();
+            store.addOrder(order);
+            placeTime.recordSince(t0);
+            placed.increment();
+            recent[recentCount++ & (recent.length - 1)] = order.getOrderNumber();
+
+            if (random.nextInt(100) < cancelPercent) {
+                int victim = recent[random.nextInt(Math.min(recentCount, recent.length))];
+                long t1 = System.nanoTime();
+                boolean found = store.cancelByNumber(victim) != null;
+                cancelTime.recordSince(t1);
+                if (found) cancelled.increment();
+            }
+        }
+    }
+
+    /**
+     * Builds a random menu item from the real catalog: a donut of any
+     * category and one of its flavors, a coffee with random add-ins, or a
+     * sandwich with random add-ons.
+     *
+     * @param random source of choices
+     * @return the item
+     */
+    static MenuItem randomItem(SplittableRandom random) {
+        switch (random.nextInt(3)) {
+            case 0: {
+                DonutCategory category = pick(random, DonutCategory.values());
+                List<String> flavors = category.flavors();
+                return new Donut(category, flavors.get(random.nextInt(flavors.size())), 1 + random.nextInt(12));
+            }
+            case 1: {
+                Coffee coffee = new Coffee(pick(random, CupSize.values()), 1 + random.nextInt(3));
+                for (AddIns a : AddIns.values()) if (random.nextInt(4) == 0) coffee.addAddIn(a);
+                return coffee;
+            }
+            default: {
+                Sandwich sandwich = new Sandwich(pick(random, Bread.values()), pick(random, Protein.values()),
+                        1 + random.nextInt(2));
+                for (AddOns a : AddOns.values()) if (random.nextInt(2) == 0) sandwich.addAddOn(a);
+                return sandwich;
+            }
+        }
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,93 @@
+package main.bench;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.MenuItem;
+import main.model.Order;
+import main.model.Sandwich;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+ * Measures order totals and the export line on orders of 1 to 10,000 items,
+ * and the cost of building such an order item by item.
+ */
+@State(Scope.Thread)
+public class OrderBenchmark {
+    /** Number of items in the order. */
+    @Param({"1", "100", "10000"})
+    public int items;
+
+    private Order order;
+    private MenuItem[] menu;
+
+    /** Builds the order under test and a pool of items to add. */
+    @Setup
+    public void setUp() {
+        menu = new MenuItem[items];
+        for (int i = 0; i < items; i++) menu[i] = item(i);
+        order = new Order();
+        for (MenuItem m : menu) order.addItem(m);
+    }
+
+    /**
+     * Reads the subtotal, tax, and total, as the current-order view does on
+     * every change.
+     *
+     * @param bh sink for the results
+     */
+    @Benchmark
+    public void totals(Blackhole bh) {
+        bh.consume(order.getSubtotal());
+        bh.consume(order.getTax());
+        bh.consume(order.getTotal());
+    }
+
+    /** @return the order's export line */
+    @Benchmark
+    public String exportLine() {
+        return order.toExportLine();
+    }
+
+    /** @return a new order built from the item pool, with its total */
+    @Benchmark
+    public double buildOrder() {
+        Order o = new Order();
+        for (MenuItem m : menu) o.addItem(m);
+        return o.getTotal();
+    }
+
+    /**
+     * Returns a mix of donuts, coffees, and sandwiches.
+     *
+     * @param i item index
+     * @return a menu item
+     */
+    static MenuItem item(int i) {
+        switch (i % 3) {
+            case 0:
+                return new Donut(DonutCategory.values()[i % 4], i % 2 == 0 ? "Glazed" : "Jelly", 1 + i % 12);
+            case 1: {
+                Coffee c = new Coffee(CupSize.values()[i % 4], 1 + i % 2);
+                if (i % 4 == 1) c.addAddIn(AddIns.MILK);
+                if (i % 5 == 1) c.addAddIn(AddIns.MOCHA);
+                return c;
+            }
+            default: {
+                Sandwich s = new Sandwich(Bread.values()[i % 3], Protein.values()[i % 3], 1);
+                if (i % 2 == 0) s.addAddOn(AddOns.CHEESE);
+                s.addAddOn(AddOns.LETTUCE);
+                return s;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package main.bench;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Sandwich;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+/**
+ * Measures the price of a single menu item, the call made for every label
+ * refresh and every line of every receipt.
+ */
+@State(Scope.Thread)
+public class PricingBenchmark {
+    private Coffee coffee;
+    private Donut donut;
+    private Sandwich sandwich;
+
+    /** Builds one fully loaded item of each kind. */
+    @Setup
+    public void setUp() {
+        coffee = new Coffee(CupSize.VENTI, 2);
+        coffee.addAddIn(AddIns.MILK);
+        coffee.addAddIn(AddIns.CARAMEL);
+        donut = new Donut(DonutCategory.SEASONAL, "Pumpkin Spice", 6);
+        sandwich = new Sandwich(Bread.SOURDOUGH, Protein.SALMON, 2);
+        sandwich.addAddOn(AddOns.CHEESE);
+        sandwich.addAddOn(AddOns.TOMATOES);
+    }
+
+    /** @return the coffee price */
+    @Benchmark
+    public double coffeePrice() {
+        return coffee.price();
+    }
+
+    /** @return the donut price */
+    @Benchmark
+    public double donutPrice() {
+        return donut.price();
+    }
+
+    /** @return the sandwich price */
+    @Benchmark
+    public double sandwichPrice() {
+        return sandwich.price();
+    }
+}
@@ -0,0 +1,54 @@
+package main.bench;
+
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.SalesReport;
+import main.model.StoreOrders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+/**
+ * Compares building the end-of-day sales report sequentially and in
+ * parallel over a day of placed orders. Which one wins depends on the
+ * number of cores, so compare both on the register's own hardware.
+ * Reported as the time to build one report.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SalesReportBenchmark {
+    /** Number of placed orders in the store. */
+    @Param({"10000", "1000000"})
+    public int orders;
+
+    private StoreOrders store;
+
+    /** Places the orders, each with one to three items. */
+    @Setup
+    public void setUp() {
+        store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(4096);
+        for (int i = 0; i < orders; i++) {
+            Order o = new Order(numbers);
+            for (int j = 0; j <= i % 3; j++) o.addItem(OrderBenchmark.item(i + j));
+            store.addOrder(o);
+        }
+    }
+
+    /** @return the report, built on the calling thread */
+    @Benchmark
+    public SalesReport sequential() {
+        return SalesReport.sequential(store.getOrders());
+    }
+
+    /** @return the report, built on the common fork-join pool */
+    @Benchmark
+    public SalesReport parallel() {
+        return SalesReport.parallel(store.getOrders());
+    }
+}
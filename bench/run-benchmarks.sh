@@ -0,0 +1,25 @@
+#!/bin/sh
+# Compiles the model and the JMH benchmarks and runs them with the GC profiler.
+# Usage: bench/run-benchmarks.sh [benchmark regex]
+# The JMH jars are downloaded from Maven Central into bench/lib on first use.
+set -e
+cd "$(dirname "$0")/.."
+
+JMH=1.37
+LIB=bench/lib
+OUT=bench/out
+mkdir -p "$LIB"
+for jar in \
+    org/openjdk/jmh/jmh-core/$JMH/jmh-core-$JMH.jar \
+    org/openjdk/jmh/jmh-generator-annprocess/$JMH/jmh-generator-annprocess-$JMH.jar \
+    net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar \
+    org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar; do
+    [ -f "$LIB/${jar##*/}" ] || curl -sSfL -o "$LIB/${jar##*/}" "https://repo1.maven.org/maven2/$jar"
+done
+CP=$(ls "$LIB"/*.jar | tr '\n' ':')
+
+# The benchmarks only need the model, not the JavaFX views
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -d "$OUT" -cp "$CP" \
+    $(find src/main/enums src/main/metrics src/main/model bench/main -name '*.java')
+java -cp "$OUT:$CP" main.bench.Benchmarks "$@"
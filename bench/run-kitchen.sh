@@ -0,0 +1,14 @@
+#!/bin/sh
+# Compiles the model and simulates kitchen shifts at increasing customer rates.
+# Usage: bench/run-kitchen.sh [rates=30,60,90,120] [minutes=30] [speedup=120] [capacity=20]
+#                             [case=1] [bar=2] [grill=2] [items=3] [wait=0] [seed=1]
+# rates are customers per hour; case, bar and grill the cooks at each station.
+set -e
+cd "$(dirname "$0")/.."
+
+OUT=bench/out/kitchen
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -d "$OUT" \
+    $(find src/main/enums src/main/metrics src/main/model -name '*.java') \
+    bench/main/bench/LoadGenerator.java bench/main/bench/KitchenSimulation.java
+java $JAVA_OPTS -cp "$OUT" main.bench.KitchenSimulation "$@"
@@ -0,0 +1,14 @@
+#!/bin/sh
+# Compiles the model and runs the headless load generator against it.
+# Usage: bench/run-load.sh [registers=4] [rate=0] [seconds=10] [items=3] [cancel=5] [seed=1]
+# registers may be a list, e.g. registers=1,2,4,8, to compare throughput per count.
+# rate is the target orders per second across all registers; 0 runs flat out.
+# Set JAVA_OPTS for heap size or GC choice, e.g. JAVA_OPTS=-Xmx2g.
+set -e
+cd "$(dirname "$0")/.."
+
+OUT=bench/out/load
+rm -rf "$OUT" && mkdir -p "$OUT"
+javac -d "$OUT" \
+    $(find src/main/enums src/main/metrics src/main/model -name '*.java') bench/main/bench/LoadGenerator.java
+java $JAVA_OPTS -cp "$OUT" main.bench.LoadGenerator "$@"
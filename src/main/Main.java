@@ -1,12 +1,24 @@
 package main;
 
 import javafx.application.Application;
-import javafx.stage.Stage;
+import javafx.application.Platform;
 import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.stage.Stage;
+import main.controllers.ViewRouter;
+import main.intake.OrderIntakeServer;
+import main.metrics.Metrics;
+import main.model.EventBus;
+import main.model.Kitchen;
 import main.model.StoreOrders;
 import main.model.Order;
+import main.model.OrderJournal;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
 
 /**
  * The entry point for the RU Cafe application.
@@ -18,42 +30,156 @@ import main.model.Order;
  * <p>
  * The {@code storeOrders} and {@code currentOrder} objects are shared across
  * controllers to allow seamless access when placing, viewing, or exporting orders.
+ * Views follow their changes through {@code events}, which delivers them in
+ * one batch per burst on the JavaFX thread.
+ * </p>
+ * <p>
+ * Placed and cancelled orders are recorded in a journal file per business
+ * day under {@code journal/} in the working directory, and the day's journal
+ * is replayed on startup, so a crash or restart does not lose the day's
+ * orders while earlier days' orders are not brought back. Clearing
+ * {@code storeOrders} empties the day's journal.
+ * </p>
+ * <p>
+ * Only the main menu is loaded before the window first appears; the other
+ * views, and their images, are loaded in the background after the first
+ * frame. The time taken by each startup phase is recorded by
+ * {@link StartupTimes}. {@code startup/fast-start.sh} launches the app with
+ * a class-data-sharing archive made by a training run (system property
+ * {@code rucafe.startup.train}), which opens every view once and exits.
+ * </p>
+ * <p>
+ * Timing metrics (see {@link Metrics}) are published over JMX once the
+ * window is up. Setting {@code rucafe.metrics.dump} to a file name also
+ * writes them to that file every {@code rucafe.metrics.dumpSeconds}
+ * seconds (default 60).
+ * </p>
+ * <p>
+ * Setting {@code rucafe.intake.port} starts an {@link OrderIntakeServer} on
+ * that loopback port, through which kiosks on the same machine place orders.
+ * </p>
+ * <p>
+ * Every order placed, from a register or a kiosk, is sent to the
+ * {@code kitchen}, whose stations are worked from the kitchen display.
  * </p>
  */
 public class Main extends Application {
+    /** Directory holding the journal of placed and cancelled orders of each day. */
+    public static final String JOURNAL_DIR = "journal";
     /** Stores all completed orders placed during the application's runtime. */
-    public static StoreOrders storeOrders = new StoreOrders();
+    public static final StoreOrders storeOrders = new StoreOrders();
+    /** Journal of placed and cancelled orders, or null if it could not be opened. */
+    public static OrderJournal journal;
+    /** Prepares placed orders; registers and kiosks send their orders here. */
+    public static final Kitchen kitchen = new Kitchen(Kitchen.DEFAULT_CAPACITY, Map.of(), 1, "kitchen");
     /** Represents the active order that the user is currently building. */
     public static Order currentOrder = new Order();
-    /** Controller reference for the Current Order screen (set dynamically). */
-    public static main.controllers.CurrentOrderController currentOrderController;
-    /** Controller reference for the Store Orders screen (set dynamically). */
-    public static main.controllers.AllOrdersController allOrdersController;
+    /** Delivers model changes to the views on the JavaFX thread. */
+    public static final EventBus events = new EventBus(Platform::runLater);
+    /** Kiosk order intake, or null unless {@code rucafe.intake.port} is set. */
+    public static OrderIntakeServer intake;
+    /** Switches the window between screens; set when the application starts. */
+    public static ViewRouter router;
     /**
-     * Starts the JavaFX application by loading the main menu view,
-     * setting the initial window size, applying stylesheets,
-     * and displaying the primary stage.
+     * Starts the JavaFX application by restoring orders from the journal,
+     * showing the main menu in the primary stage, and then, once it has been
+     * drawn, loading the other views in the background.
      *
      * @param stage the main application window provided by the JavaFX runtime
      * @throws Exception if the FXML file cannot be loaded
      */
     @Override
     public void start(Stage stage) throws Exception {
-        Parent root = FXMLLoader.load(getClass().getResource("/main-view.fxml"));
-        Scene scene = new Scene(root, 900, 700); // Set initial size
-        scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-        stage.setTitle("RU Cafe");
+        StartupTimes.finished(StartupTimes.Phase.TOOLKIT);
+        try {
+            journal = OrderJournal.openDay(Paths.get(JOURNAL_DIR), LocalDate.now(), storeOrders);
+            storeOrders.addListener(journal); // from now on every change is journaled, in order
+            // Renumber the empty current order past any restored orders
+            currentOrder = new Order();
+        } catch (IOException e) {
+            e.printStackTrace(); // keep running, but orders will not be persisted
+        }
+        StartupTimes.finished(StartupTimes.Phase.JOURNAL);
+        router = new ViewRouter(stage, 900, 700); // Set initial size
+        StartupTimes.finished(StartupTimes.Phase.MAIN_VIEW);
         stage.setMinWidth(800);
         stage.setMinHeight(600);
-        stage.setScene(scene);
+        afterFirstFrame(stage.getScene(), Main::firstFrameShown);
         stage.show();
     }
+    /**
+     * Runs an action once, after the first pulse that lays out and renders
+     * the scene has completed.
+     *
+     * @param scene  the scene to watch
+     * @param action the action, run on the JavaFX thread
+     */
+    private static void afterFirstFrame(Scene scene, Runnable action) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            private boolean done;
+
+            @Override
+            public void run() {
+                if (done) return;
+                done = true;
+                // Listeners cannot be removed while the pulse iterates over them
+                Platform.runLater(() -> {
+                    scene.removePostLayoutPulseListener(this);
+                    action.run();
+                });
+            }
+        });
+    }
+    /**
+     * Called once the main menu is on screen: reports the startup timings,
+     * starts loading the other views and publishes the metrics. A training run instead opens
+     * every view once, so their classes are recorded in the class-data
+     * archive, and exits.
+     */
+    private static void firstFrameShown() {
+        StartupTimes.finished(StartupTimes.Phase.FIRST_FRAME);
+        StartupTimes.report();
+        if (Boolean.getBoolean("rucafe.startup.train")) {
+            for (ViewRouter.View view : ViewRouter.View.values()) router.show(view);
+            router.show(ViewRouter.View.MAIN);
+            Platform.runLater(Platform::exit);
+        } else {
+            router.preload();
+            Metrics.registerMBeans();
+            String dump = System.getProperty("rucafe.metrics.dump");
+            if (dump != null) {
+                Metrics.startDump(Paths.get(dump), Duration.ofSeconds(Long.getLong("rucafe.metrics.dumpSeconds", 60)));
+            }
+            Integer port = Integer.getInteger("rucafe.intake.port");
+            if (port != null) {
+                try {
+                    intake = OrderIntakeServer.start(
+                            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), storeOrders, journal,
+                            kitchen);
+                } catch (IOException e) {
+                    e.printStackTrace(); // the registers keep working without kiosks
+                }
+            }
+        }
+    }
+    /**
+     * Stops the kiosk intake and writes out any journal records still
+     * pending when the application exits.
+     *
+     * @throws Exception if closing the journal fails
+     */
+    @Override
+    public void stop() throws Exception {
+        if (intake != null) intake.close();
+        if (journal != null) journal.close();
+    }
     /**
      * Launches the JavaFX application.
      *
      * @param args command-line arguments (unused)
      */
     public static void main(String[] args) {
+        StartupTimes.started();
         launch(args);
     }
 }
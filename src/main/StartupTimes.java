@@ -0,0 +1,109 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Records how long each phase of application startup takes, from the JVM
+ * process starting to the first frame of the main menu.
+ * <p>
+ * The phases are printed as one line when the first frame is shown. If the
+ * {@code rucafe.startup.log} system property names a file, they are also
+ * appended to it as a CSV row (with the launch mode from
+ * {@code rucafe.startup.mode}), so startup time can be compared across
+ * releases and between a normal and a fast start.
+ * </p>
+ */
+final class StartupTimes {
+    /** The phases, in the order they happen. */
+    enum Phase {
+        /** Process start until {@code main} is entered. */
+        JVM("jvm"),
+        /** {@code main} until the JavaFX toolkit calls {@code start}. */
+        TOOLKIT("toolkit"),
+        /** Replaying the order journal. */
+        JOURNAL("journal"),
+        /** Loading and styling the main menu view. */
+        MAIN_VIEW("main view"),
+        /** Showing the window until its first frame has been rendered. */
+        FIRST_FRAME("first frame");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final long[] MILLIS = new long[Phase.values().length];
+    private static long last;
+
+    private StartupTimes() {
+    }
+
+    /**
+     * Marks the start of timing, when {@code main} is entered. The JVM phase
+     * is measured from the process start time reported by the OS.
+     */
+    static void started() {
+        last = System.nanoTime();
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                MILLIS[Phase.JVM.ordinal()] = Math.max(0, Instant.now().toEpochMilli() - start.toEpochMilli()));
+    }
+
+    /**
+     * Marks the end of a phase, which began where the previous phase ended.
+     *
+     * @param phase the phase that has just finished
+     */
+    static void finished(Phase phase) {
+        long now = System.nanoTime();
+        MILLIS[phase.ordinal()] = (now - last) / 1_000_000;
+        last = now;
+    }
+
+    /**
+     * Prints the phase timings, and appends them to the startup log if one
+     * is configured.
+     */
+    static void report() {
+        StringBuilder line = new StringBuilder("Startup:");
+        long total = 0;
+        for (Phase p : Phase.values()) {
+            line.append(' ').append(p.label).append(' ').append(MILLIS[p.ordinal()]).append(" ms,");
+            total += MILLIS[p.ordinal()];
+        }
+        System.out.println(line.append(" total ").append(total).append(" ms"));
+
+        String log = System.getProperty("rucafe.startup.log");
+        if (log != null) {
+            try {
+                append(Paths.get(log), total);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void append(Path file, long total) throws IOException {
+        boolean header = !Files.exists(file);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (header) {
+                out.write("time,mode,java");
+                for (Phase p : Phase.values()) out.write("," + p.name().toLowerCase() + "_ms");
+                out.write(",total_ms\n");
+            }
+            out.write(Instant.now() + "," + System.getProperty("rucafe.startup.mode", "normal")
+                    + "," + System.getProperty("java.version"));
+            for (long ms : MILLIS) out.write("," + ms);
+            out.write("," + total + "\n");
+        }
+    }
+}
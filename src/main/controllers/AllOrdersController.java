@@ -1,41 +1,135 @@
 package main.controllers;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import java.nio.file.*;
+import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 import main.Main;
+import main.intake.OrderImporter;
+import main.model.Money;
+import main.model.Order;
+import main.model.OrderArchive;
+import main.model.StoreOrders;
 /**
  * Controller for the store orders view.
  * Displays all placed orders, allows cancellation of a selected order,
- * shows order details, and supports exporting all orders to a text file.
+ * shows order details, and supports exporting all orders to a text file
+ * and importing catering orders in bulk from CSV or JSON Lines files.
+ * At the close of the day the orders are moved to a binary archive under
+ * {@code archive/}, which empties the store and the day's journal, and can
+ * be looked up there by order number later.
+ * <p>
+ * The list is backed by an observable list of orders that is kept up to
+ * date as orders are placed and cancelled, rather than rebuilt, and only
+ * the rows on screen are formatted. Changes arrive through
+ * {@link Main#events}, so a burst of them updates the list once.
+ * </p>
+ * <p>
+ * Exports, imports and archiving run on a background thread, one at a
+ * time, with a progress bar and a cancel button, so the register stays
+ * usable while a long export is written or a large file is read.
+ * </p>
  */
-public class AllOrdersController {
+public class AllOrdersController implements ViewRouter.ShowListener {
 
-    @FXML private ListView<String> ordersList;
-    @FXML private TextArea orderDetailArea;
-    @FXML private Button cancelBtn, exportBtn;
+    /** Directory (in the working directory) that order archives are written to. */
+    private static final Path ARCHIVE_DIR = Paths.get("archive");
+    private static final String ARCHIVE_SUFFIX = ".orders";
+    private static final DateTimeFormatter ARCHIVE_NAME =
+            DateTimeFormatter.ofPattern("'orders-'yyyyMMdd-HHmmss'" + ARCHIVE_SUFFIX + "'");
+    /** How many times archiving starts over when orders change while it writes. */
+    private static final int ARCHIVE_ATTEMPTS = 5;
 
-    private static final double NJ_TAX = 0.06625;
+    @FXML private ListView<Order> ordersList;
+    @FXML private TextArea orderDetailArea;
+    @FXML private Button cancelBtn, exportBtn, importBtn, archiveBtn, findArchivedBtn, cancelJobBtn;
+    @FXML private ImageView ordersImage;
+    @FXML private HBox jobBox;
+    @FXML private ProgressBar jobProgress;
+    @FXML private Label jobStatus;
+    /** The export, import or archiving in progress, or null if none is running. */
+    private Task<?> job;
+    /** The placed orders shown in {@link #ordersList}, in placement order. */
+    private final ObservableList<Order> orders = FXCollections.observableArrayList();
+    private boolean subscribed;
     /**
-     * Initializes the store orders view by setting the window title,
-     * registering this controller with {@link Main}, and loading
-     * the current list of store orders.
+     * Initializes the store orders view by showing its header image and
+     * setting up the order list's cells.
      */
     @FXML
     private void initialize() {
-        // Set window title
-        if (ordersList != null && ordersList.getScene() != null) {
-            javafx.stage.Stage stage = (javafx.stage.Stage) ordersList.getScene().getWindow();
-            if (stage != null) {
-                stage.setTitle("Store Orders");
+        ImageCache.show(ordersImage, "orders.jpg");
+        ordersList.setItems(orders);
+        ordersList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Order order, boolean empty) {
+                super.updateItem(order, empty);
+                setText(empty || order == null ? null
+                        : "Order #" + order.getOrderNumber() + " — Total $" + Money.format(order.getTotalCents()));
             }
+        });
+    }
+    /**
+     * Loads the store orders the first time the view is shown and from then
+     * on follows {@link Main#storeOrders}.
+     */
+    @Override
+    public void onShow() {
+        if (subscribed) return;
+        subscribed = true;
+        orders.setAll(Main.storeOrders.subscribe(Main.events, this, AllOrdersController::ordersChanged));
+    }
+    /**
+     * Applies a batch of placed and cancelled orders to the list, adding
+     * each run of placed orders in one go and removing each run of
+     * cancelled ones in one pass over the list.
+     *
+     * @param changes the changes, oldest first
+     */
+    private void ordersChanged(List<StoreOrders.Change> changes) {
+        List<Order> placed = new ArrayList<>();
+        Set<Order> cancelled = new HashSet<>();
+        for (StoreOrders.Change c : changes) {
+            if (c.placed()) {
+                removeAll(cancelled);
+                placed.add(c.order());
+            } else {
+                orders.addAll(placed);
+                placed.clear();
+                cancelled.add(c.order());
+            }
+        }
+        orders.addAll(placed);
+        removeAll(cancelled);
+    }
+    /**
+     * Removes cancelled orders from the list and clears the set.
+     *
+     * @param cancelled orders to remove
+     */
+    private void removeAll(Set<Order> cancelled) {
+        if (cancelled.size() == 1) {
+            orders.remove(cancelled.iterator().next()); // plain scan beats a set lookup per row
+        } else if (!cancelled.isEmpty()) {
+            orders.removeAll(cancelled);
         }
-        
-        // register this instance in Main so other controllers can ask it to refresh
-        Main.allOrdersController = this;
-        reloadOrders();
+        cancelled.clear();
     }
     /**
      * Handles selection changes in the orders list.
@@ -44,65 +138,265 @@ public class AllOrdersController {
      */
     @FXML
     private void onOrderSelected() {
-        int index = ordersList.getSelectionModel().getSelectedIndex();
-        if (index >= 0) {
-            var order = Main.storeOrders.getOrders().get(index);
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("Order #").append(order.getOrderNumber()).append("\n");
-            sb.append("Subtotal: $").append(String.format("%.2f", order.getSubtotal())).append("\n");
-            sb.append("Tax: $").append(String.format("%.2f", order.getTax())).append("\n");
-            sb.append("Total: $").append(String.format("%.2f", order.getTotal())).append("\n\n");
-            sb.append("Items:\n");
-            for (var item : order.getItems()) {
-                sb.append(" • ").append(item.toString()).append("\n");
-            }
-
-            orderDetailArea.setText(sb.toString());
+        var order = ordersList.getSelectionModel().getSelectedItem();
+        if (order != null) {
+            orderDetailArea.setText(describe(order));
+        }
+    }
+    /**
+     * Formats the details (subtotal, tax, total, and items) of an order
+     * for the detail area.
+     *
+     * @param order the order to describe
+     * @return the order details
+     */
+    private static String describe(Order order) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Order #").append(order.getOrderNumber()).append("\n");
+        sb.append("Subtotal: $").append(Money.format(order.getSubtotalCents())).append("\n");
+        sb.append("Tax: $").append(Money.format(order.getTaxCents())).append("\n");
+        sb.append("Total: $").append(Money.format(order.getTotalCents())).append("\n\n");
+        sb.append("Items:\n");
+        for (var item : order.getItems()) {
+            sb.append(" • ").append(item.toString()).append("\n");
         }
+        return sb.toString();
     }
     /**
-     * Cancels (removes) the selected order from the store orders list,
-     * then reloads the list and clears the detail area.
+     * Cancels (removes) the selected order from the store orders list, takes
+     * back its kitchen tickets that no cook has started, and clears the
+     * detail area. The list drops the order when the store reports the
+     * cancellation.
      */
     @FXML
     private void onCancelOrder() {
-        int index = ordersList.getSelectionModel().getSelectedIndex();
-        if (index >= 0) {
-            Main.storeOrders.removeOrder(Main.storeOrders.getOrders().get(index));
-            reloadOrders();
+        var order = ordersList.getSelectionModel().getSelectedItem();
+        if (order != null) {
+            Main.storeOrders.cancelByNumber(order.getOrderNumber());
+            Main.kitchen.cancel(order.getOrderNumber());
             orderDetailArea.clear();
         }
     }
     /**
-     * Exports all store orders to a text file named "StoreOrders.txt"
-     * in the working directory. Shows an alert indicating success or failure.
+     * Starts exporting all store orders to a text file named
+     * "StoreOrders.txt" in the working directory on a background thread,
+     * showing its progress. An alert reports success or failure when it
+     * ends; the previous export file is only replaced by a complete one.
      */
     @FXML
     private void onExport() {
+        if (job != null) return;
+        Path path = Paths.get("StoreOrders.txt");
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws IOException {
+                return Main.storeOrders.exportTo(path, (written, total) -> {
+                    updateProgress(written, total);
+                    if (written % 1000 == 0 || written == total) {
+                        updateMessage(written + " of " + total + " orders");
+                    }
+                });
+            }
+        };
+        task.setOnSucceeded(e -> {
+            jobDone();
+            showAlert("Export Successful", task.getValue() + " orders exported to " + path.toAbsolutePath());
+        });
+        task.setOnFailed(e -> {
+            jobDone();
+            showAlert("Export Failed", "Error writing to file: " + task.getException().getMessage());
+        });
+        task.setOnCancelled(e -> {
+            jobDone();
+            showAlert("Export Cancelled", "The export was cancelled.");
+        });
+
+        startJob(task, "orders-export");
+    }
+    /**
+     * Asks for a CSV or JSON Lines file of catering orders and imports it
+     * on a background thread, showing its progress. Valid orders are placed
+     * and journaled as they are read; an alert then reports how many were
+     * imported and why any were rejected.
+     */
+    @FXML
+    private void onImport() {
+        if (job != null) return;
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Orders");
+        chooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("Order files (CSV, JSON Lines)", "*.csv", "*.jsonl", "*.ndjson"));
+        File file = chooser.showOpenDialog(ordersList.getScene().getWindow());
+        if (file == null) return;
+        Path path = file.toPath();
+        Task<OrderImporter.Result> task = new Task<>() {
+            @Override
+            protected OrderImporter.Result call() throws IOException {
+                long size = Math.max(1, Files.size(path));
+                updateMessage("Reading " + path.getFileName());
+                return OrderImporter.importFile(path, Main.storeOrders, Main.journal, (orders, chars) -> {
+                    updateProgress(Math.min(chars, size), size);
+                    updateMessage(orders + " orders imported");
+                });
+            }
+        };
+        task.setOnSucceeded(e -> {
+            jobDone();
+            OrderImporter.Result r = task.getValue();
+            StringBuilder msg = new StringBuilder()
+                    .append(r.orders()).append(" orders (").append(r.items()).append(" items) imported from ")
+                    .append(path.getFileName()).append(" in ").append(r.nanos() / 1_000_000).append(" ms.");
+            if (r.rejected() > 0) {
+                msg.append("\n\n").append(r.rejected()).append(" orders rejected:");
+                r.errors().stream().limit(5).forEach(err -> msg.append("\n").append(err));
+                if (r.rejected() > 5) msg.append("\n…");
+            }
+            showAlert("Import Finished", msg.toString());
+        });
+        task.setOnFailed(e -> {
+            jobDone();
+            showAlert("Import Failed", "Error reading " + path.getFileName() + ": " + task.getException().getMessage());
+        });
+        task.setOnCancelled(e -> {
+            jobDone();
+            showAlert("Import Cancelled", "The import was cancelled; orders already read stay placed.");
+        });
+        startJob(task, "orders-import");
+    }
+    /**
+     * Shows a job's progress and runs it on a daemon thread.
+     *
+     * @param task the export, import or archiving
+     * @param name the thread name
+     */
+    private void startJob(Task<?> task, String name) {
+        job = task;
+        exportBtn.setDisable(true);
+        importBtn.setDisable(true);
+        archiveBtn.setDisable(true);
+        jobProgress.progressProperty().bind(task.progressProperty());
+        jobStatus.textProperty().bind(task.messageProperty());
+        jobBox.setVisible(true);
+        jobBox.setManaged(true);
+
+        Thread worker = new Thread(task, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+    /**
+     * Cancels the export or import in progress, if any.
+     */
+    @FXML
+    private void onCancelJob() {
+        if (job != null) job.cancel();
+    }
+    /**
+     * Hides the job progress once an export, import or archiving has ended.
+     */
+    private void jobDone() {
+        job = null;
+        exportBtn.setDisable(false);
+        importBtn.setDisable(false);
+        archiveBtn.setDisable(false);
+        cancelJobBtn.setDisable(false);
+        jobProgress.progressProperty().unbind();
+        jobStatus.textProperty().unbind();
+        jobBox.setVisible(false);
+        jobBox.setManaged(false);
+    }
+    /**
+     * Closes out the day on a background thread: saves all store orders to a
+     * new binary archive in the archive directory, named after the current
+     * date and time, then clears the store, which empties the day's journal.
+     * If orders are placed or cancelled while the archive is written, it is
+     * written again, so every order ends up in exactly one archive. An alert
+     * reports success or failure when it ends. It cannot be cancelled.
+     */
+    @FXML
+    private void onArchive() {
+        if (job != null) return;
+        Path path = ARCHIVE_DIR.resolve(ARCHIVE_NAME.format(LocalDateTime.now()));
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws IOException {
+                Files.createDirectories(ARCHIVE_DIR);
+                for (int attempt = 0; attempt < ARCHIVE_ATTEMPTS; attempt++) {
+                    Collection<Order> snapshot = Main.storeOrders.getOrders();
+                    updateMessage("Archiving " + snapshot.size() + " orders");
+                    OrderArchive.write(path, snapshot);
+                    if (Main.storeOrders.clearIfUnchanged(snapshot)) return snapshot.size();
+                }
+                // Orders are still coming in; leave them in the store, not half archived
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(OrderArchive.indexFile(path));
+                throw new IOException("orders kept changing while they were archived; try again when it is quieter");
+            }
+        };
+        task.setOnSucceeded(e -> {
+            jobDone();
+            orderDetailArea.clear();
+            showAlert("Archive Saved", task.getValue() + " orders archived to " + path.toAbsolutePath()
+                    + " and cleared from the store.");
+        });
+        task.setOnFailed(e -> {
+            jobDone();
+            showAlert("Archive Failed", "Error writing archive: " + task.getException().getMessage());
+        });
+
+        startJob(task, "orders-archive");
+        cancelJobBtn.setDisable(true); // once started, the day is closed out or left as it was
+    }
+    /**
+     * Asks for an order number and searches the archives for it, newest
+     * archive first, showing the order in the detail area if found.
+     */
+    @FXML
+    private void onFindArchived() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Find Archived Order");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Order number:");
+        String input = dialog.showAndWait().orElse(null);
+        if (input == null || input.isBlank()) return;
+
+        int number;
+        try {
+            number = Integer.parseInt(input.trim().replace("#", ""));
+        } catch (NumberFormatException ex) {
+            showAlert("Invalid Order Number", "\"" + input + "\" is not an order number.");
+            return;
+        }
         try {
-            Path path = Paths.get("StoreOrders.txt");
-            String content = Main.storeOrders.export();
-            Files.writeString(path, content, StandardCharsets.UTF_8);
-            showAlert("Export Successful", "Orders exported to " + path.toAbsolutePath());
+            for (Path path : listArchives()) {
+                try (OrderArchive archive = OrderArchive.open(path)) {
+                    Order order = archive.findByNumber(number);
+                    if (order != null) {
+                        ordersList.getSelectionModel().clearSelection();
+                        orderDetailArea.setText(describe(order) + "\n(from " + path.getFileName() + ")");
+                        return;
+                    }
+                }
+            }
+            showAlert("Not Found", "Order #" + number + " is not in any archive.");
         } catch (IOException ex) {
-            showAlert("Export Failed", "Error writing to file: " + ex.getMessage());
+            showAlert("Archive Error", "Error reading archives: " + ex.getMessage());
         }
     }
     /**
-     * Reloads the list of store orders from {@link Main#storeOrders}
-     * and updates the list view with order number and total for each order.
-     * This method is public so other controllers can trigger refreshes.
+     * Lists the archive data files in the archive directory, newest first.
+     *
+     * @return archive files
+     * @throws IOException if the directory cannot be read
      */
-
-    public void reloadOrders() {
-        ordersList.getItems().clear();
-        for (var order : Main.storeOrders.getOrders()) {
-            ordersList.getItems().add(
-                    "Order #" + order.getOrderNumber() +
-                            " — Total $" + String.format("%.2f", order.getTotal())
-            );
+    private static List<Path> listArchives() throws IOException {
+        List<Path> archives = new ArrayList<>();
+        if (!Files.isDirectory(ARCHIVE_DIR)) return archives;
+        try (Stream<Path> files = Files.list(ARCHIVE_DIR)) {
+            files.filter(p -> p.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .forEach(archives::add);
         }
+        return archives;
     }
     /**
      * Displays an informational alert with the given title and message.
@@ -118,42 +412,11 @@ public class AllOrdersController {
         alert.showAndWait();
     }
     /**
-     * Handles navigation back to the main menu view (main-view.fxml).
-     * Preserves the current window size and reapplies the stylesheet.
-     *
-     * @param event the action event triggered by the Back button
+     * Handles navigation back to the main menu view.
      */
     @FXML
-    private void onBackToMainMenu(javafx.event.ActionEvent event) {
-        try {
-            javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(
-                    getClass().getResource("/main-view.fxml")
-            );
-            javafx.stage.Stage stage =
-                    (javafx.stage.Stage) ((javafx.scene.Node) event.getSource())
-                            .getScene().getWindow();
-            
-            // Preserve window size
-            double width = stage.getWidth();
-            double height = stage.getHeight();
-            
-            javafx.scene.Scene scene = stage.getScene();
-            if (scene == null) {
-                scene = new javafx.scene.Scene(root, width, height);
-                scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-                stage.setScene(scene);
-            } else {
-                scene.setRoot(root);
-                // Ensure minimum size is maintained
-                if (width < 800) width = 900;
-                if (height < 600) height = 700;
-                stage.setWidth(width);
-                stage.setHeight(height);
-            }
-            stage.setTitle("RU Cafe");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
     }
 
 }
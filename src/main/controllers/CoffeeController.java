@@ -2,15 +2,14 @@ package main.controllers;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
 import main.Main;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
 import main.model.Coffee;
+import main.model.Money;
 import main.enums.AddIns;
 import main.enums.CupSize;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
-import java.io.IOException;
 
 /**
  * Controller for the coffee ordering view.
@@ -19,27 +18,21 @@ import java.io.IOException;
  */
 public class CoffeeController {
 
+    private static final Histogram PREVIEW_TIME = Metrics.histogram("ui.pricePreview");
+
     @FXML private ComboBox<CupSize> cupSizeCombo;
     @FXML private CheckBox whippedCreamCheck, vanillaCheck, milkCheck, caramelCheck, mochaCheck;
     @FXML private Spinner<Integer> quantitySpinner;
     @FXML private Label subtotalLabel;
-
-    private static final double ADD_IN_COST = 0.25;
-    private static final double BASE_PRICE = 2.39;
+    @FXML private ImageView coffeeImage;
     /**
      * Initializes the coffee ordering view by setting up the cup size options,
      * quantity spinner, listeners for controls, and computing the initial subtotal.
      */
     @FXML
     private void initialize() {
-        // Set window title
-        if (cupSizeCombo != null && cupSizeCombo.getScene() != null) {
-            Stage stage = (Stage) cupSizeCombo.getScene().getWindow();
-            if (stage != null) {
-                stage.setTitle("Ordering Coffee");
-            }
-        }
-        
+        ImageCache.show(coffeeImage, "coffee.jpg");
+
         // Populate size options
         cupSizeCombo.getItems().setAll(CupSize.values());
         cupSizeCombo.getSelectionModel().selectFirst();
@@ -65,8 +58,7 @@ public class CoffeeController {
     /**
      * Handles the "Add to Order" button click.
      * Creates a {@link Coffee} object based on the user's selections, adds it
-     * to {@link Main#currentOrder}, refreshes the current order view if open,
-     * and shows a confirmation alert.
+     * to {@link Main#currentOrder}, and shows a confirmation alert.
      */
     @FXML
     private void onAddCoffee() {
@@ -82,10 +74,6 @@ public class CoffeeController {
         if (mochaCheck.isSelected()) coffee.addAddIn(AddIns.MOCHA);
 
         Main.currentOrder.addItem(coffee);
-        // Refresh the Current Order view if it's available
-        if (Main.currentOrderController != null) {
-            Main.currentOrderController.refreshTotals();
-        }
         showAlert("Coffee Added", "Coffee successfully added to current order!");
     }
 
@@ -111,28 +99,33 @@ public class CoffeeController {
      * price calculation. If no size is selected, the subtotal is set to $0.00.
      */
     private void updateSubtotal() {
-        CupSize size = cupSizeCombo.getValue();
+        long start = System.nanoTime();
+        try {
+            CupSize size = cupSizeCombo.getValue();
         
-        if (size == null) {
-            subtotalLabel.setText("Subtotal: $0.00");
-            return;
-        }
+            if (size == null) {
+                subtotalLabel.setText("Subtotal: $0.00");
+                return;
+            }
         
-        int quantity = quantitySpinner.getValue();
+            int quantity = quantitySpinner.getValue();
 
-        // Create a temporary Coffee object to use its price calculation
-        Coffee tempCoffee = new Coffee(size, quantity);
+            // Create a temporary Coffee object to use its price calculation
+            Coffee tempCoffee = new Coffee(size, quantity);
         
-        // Add selected add-ins
-        if (whippedCreamCheck.isSelected()) tempCoffee.addAddIn(AddIns.WHIPPED_CREAM);
-        if (vanillaCheck.isSelected()) tempCoffee.addAddIn(AddIns.VANILLA);
-        if (milkCheck.isSelected()) tempCoffee.addAddIn(AddIns.MILK);
-        if (caramelCheck.isSelected()) tempCoffee.addAddIn(AddIns.CARAMEL);
-        if (mochaCheck.isSelected()) tempCoffee.addAddIn(AddIns.MOCHA);
-
-        // Use the model's price calculation for consistency
-        double subtotal = tempCoffee.price();
-        subtotalLabel.setText(String.format("Subtotal: $%.2f", subtotal));
+            // Add selected add-ins
+            if (whippedCreamCheck.isSelected()) tempCoffee.addAddIn(AddIns.WHIPPED_CREAM);
+            if (vanillaCheck.isSelected()) tempCoffee.addAddIn(AddIns.VANILLA);
+            if (milkCheck.isSelected()) tempCoffee.addAddIn(AddIns.MILK);
+            if (caramelCheck.isSelected()) tempCoffee.addAddIn(AddIns.CARAMEL);
+            if (mochaCheck.isSelected()) tempCoffee.addAddIn(AddIns.MOCHA);
+
+            // Use the model's price calculation for consistency
+            long subtotal = tempCoffee.priceCents();
+            subtotalLabel.setText("Subtotal: $" + Money.format(subtotal));
+        } finally {
+            PREVIEW_TIME.recordSince(start);
+        }
     }
 
     /**
@@ -149,41 +142,11 @@ public class CoffeeController {
         alert.showAndWait();
     }
     /**
-     * Handles navigation back to the main menu view (main-view.fxml).
-     * Preserves the current window size and reapplies the stylesheet.
-     *      * @param event the action event triggered by the Back button
+     * Handles navigation back to the main menu view.
      */
     @FXML
-    private void onBackToMainMenu(javafx.event.ActionEvent event) {
-        try {
-            javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(
-                    getClass().getResource("/main-view.fxml")
-            );
-            javafx.stage.Stage stage =
-                    (javafx.stage.Stage) ((javafx.scene.Node) event.getSource())
-                            .getScene().getWindow();
-            
-            // Preserve window size
-            double width = stage.getWidth();
-            double height = stage.getHeight();
-            
-            javafx.scene.Scene scene = stage.getScene();
-            if (scene == null) {
-                scene = new javafx.scene.Scene(root, width, height);
-                scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-                stage.setScene(scene);
-            } else {
-                scene.setRoot(root);
-                // Ensure minimum size is maintained
-                if (width < 800) width = 900;
-                if (height < 600) height = 700;
-                stage.setWidth(width);
-                stage.setHeight(height);
-            }
-            stage.setTitle("RU Cafe");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
     }
 
 
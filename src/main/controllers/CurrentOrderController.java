@@ -1,38 +1,70 @@
 package main.controllers;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
+import java.util.List;
+import java.util.Set;
 import main.Main;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+import main.model.EventBus;
+import main.model.Kitchen;
 import main.model.MenuItem;
+import main.model.Money;
 import main.model.Order;
 /**
  * Controller for the current order view.
  * Displays all items in the current order, allows items to be removed or cleared,
  * and lets the user place the order into the store-wide list of orders.
+ * <p>
+ * The view subscribes to the order it shows through {@link Main#events}:
+ * each added or removed item inserts or removes one row, and the total
+ * labels are updated once per batch of changes from the order's running
+ * totals, instead of rebuilding the list.
+ * </p>
  */
-public class CurrentOrderController {
+public class CurrentOrderController implements ViewRouter.ShowListener {
 
-    @FXML private ListView<String> itemList; // display each item's summary string
+    private static final Histogram PLACE_TIME = Metrics.histogram("ui.placeOrder");
+
+    @FXML private ListView<MenuItem> itemList;
     @FXML private Label subtotalLabel, taxLabel, totalLabel;
     @FXML private Button removeSelectedBtn, clearBtn, placeOrderBtn;
+    @FXML private ImageView cartImage;
+    /** The items of {@link #shown}, in order, as rows of {@link #itemList}. */
+    private final ObservableList<MenuItem> items = FXCollections.observableArrayList();
+    /** The order this view follows, or null before it is first shown. */
+    private Order shown;
+    /** The subscription to {@link #shown}'s changes. */
+    private EventBus.Sink<Order.Change> subscription;
     /**
-     * Initializes the current order view by setting the window title,
-     * registering this controller with {@link Main}, and refreshing
-     * the displayed items and totals.
+     * Initializes the current order view by showing its header image and
+     * setting up the item list's cells.
      */
     @FXML
     private void initialize() {
-        // Set window title
-        if (itemList != null && itemList.getScene() != null) {
-            javafx.stage.Stage stage = (javafx.stage.Stage) itemList.getScene().getWindow();
-            if (stage != null) {
-                stage.setTitle("Current Order");
+        ImageCache.show(cartImage, "cart.png");
+        itemList.setItems(items);
+        itemList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(MenuItem item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.toString());
             }
-        }
-        
-        // Register this controller with Main so it can be refreshed from other controllers
-        main.Main.currentOrderController = this;
-        refreshTotals();
+        });
+    }
+    /**
+     * Follows {@link Main#currentOrder} each time the view is shown. Items
+     * added from the other screens have already reached the list through
+     * the subscription; the list is only reloaded if the current order
+     * has been replaced.
+     */
+    @Override
+    public void onShow() {
+        follow(Main.currentOrder);
     }
     /**
      * Handles the removal of the selected item from the current order.
@@ -41,11 +73,9 @@ public class CurrentOrderController {
 
     @FXML
     private void onRemoveSelected() {
-        int selectedIndex = itemList.getSelectionModel().getSelectedIndex();
-        if (selectedIndex >= 0 && selectedIndex < Main.currentOrder.getItems().size()) {
-            MenuItem itemToRemove = Main.currentOrder.getItems().get(selectedIndex);
+        MenuItem itemToRemove = itemList.getSelectionModel().getSelectedItem();
+        if (itemToRemove != null) {
             Main.currentOrder.removeItem(itemToRemove);
-            refreshTotals();
         } else {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("No Selection");
@@ -71,14 +101,16 @@ public class CurrentOrderController {
 
         if (confirmAlert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
             Main.currentOrder.clear();
-            refreshTotals();
         }
     }
     /**
      * Handles placing the current order into the store orders list.
-     * If the order is empty, shows a warning. Otherwise it adds the
-     * current order to {@link Main#storeOrders}, creates a new current
-     * order, and shows a confirmation alert.
+     * If the order is empty, shows a warning. Otherwise it adds the order
+     * to {@link Main#storeOrders}, sends it to {@link Main#kitchen}, creates
+     * a new current order, and shows a confirmation alert. A busy kitchen
+     * never stops the register: the order is queued anyway, and the
+     * confirmation tells the cashier which stations are behind so the
+     * customer can be warned of a wait.
      */
     @FXML
     private void onPlaceOrder() {
@@ -91,82 +123,86 @@ public class CurrentOrderController {
             return;
         }
 
-        // Add current order to the store's list
+        long start = System.nanoTime();
+        // Add current order to the store's list; the journal records it as a store listener
         Main.storeOrders.addOrder(Main.currentOrder);
+        Set<Kitchen.Station> behind = Main.kitchen.enqueue(Main.currentOrder);
 
         int placedOrderNumber = Main.currentOrder.getOrderNumber();
 
         // Start a brand new current order
-        Main.currentOrder = new main.model.Order();
+        Main.currentOrder = new Order();
 
-        // Refresh this screen
-        refreshTotals();
+        // Show the (empty) new order on this screen
+        follow(Main.currentOrder);
+        PLACE_TIME.recordSince(start);
 
-        // Tell the user it worked
-        Alert confirm = new Alert(Alert.AlertType.INFORMATION);
+        // Tell the user it worked, and whether the customer should expect a wait
+        Alert confirm = new Alert(behind.isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
         confirm.setTitle("Order Placed");
         confirm.setHeaderText("Order #" + placedOrderNumber + " placed.");
-        confirm.setContentText("The order has been added to Store Orders.");
+        confirm.setContentText("The order has been added to Store Orders."
+                + (behind.isEmpty() ? "" : " " + behindStations(behind)));
         confirm.showAndWait();
     }
     /**
-     * Refreshes the display with current order items and totals.
-     * This method reads from {@link Main#currentOrder} and updates the UI.
-     * Can be called from other controllers when the current order changes.
+     * Describes which kitchen stations are over capacity.
+     *
+     * @param behind the stations
+     * @return a sentence naming them
      */
-    public void refreshTotals() {
-        // Update item list
-        itemList.getItems().clear();
-        for (MenuItem item : Main.currentOrder.getItems()) {
-            itemList.getItems().add(item.toString());
+    private static String behindStations(Set<Kitchen.Station> behind) {
+        StringBuilder sb = new StringBuilder();
+        for (Kitchen.Station s : behind) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(s.name().toLowerCase());
         }
-
-        // Calculate and display totals using Order's methods
-        double sub = Main.currentOrder.getSubtotal();
-        double tax = Main.currentOrder.getTax();
-        double total = Main.currentOrder.getTotal();
-
-        subtotalLabel.setText(String.format("$%.2f", sub));
-        taxLabel.setText(String.format("$%.2f", tax));
-        totalLabel.setText(String.format("$%.2f", total));
+        return "The kitchen is behind at: " + sb + ". Let the customer know there may be a wait.";
     }
     /**
-     * Handles navigation back to the main menu view (main-view.fxml).
-     * Preserves the current window size and reapplies the stylesheet.
+     * Switches the view to an order: drops the subscription to the previous
+     * one, loads the order's items once and subscribes to it from then on.
      *
-     * @param event the action event triggered by the Back button
+     * @param order the order to show
      */
-    @FXML
-    private void onBackToMainMenu(javafx.event.ActionEvent event) {
-        try {
-            javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(
-                    getClass().getResource("/main-view.fxml")
-            );
-            javafx.stage.Stage stage =
-                    (javafx.stage.Stage) ((javafx.scene.Node) event.getSource())
-                            .getScene().getWindow();
-            
-            // Preserve window size
-            double width = stage.getWidth();
-            double height = stage.getHeight();
-            
-            javafx.scene.Scene scene = stage.getScene();
-            if (scene == null) {
-                scene = new javafx.scene.Scene(root, width, height);
-                scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-                stage.setScene(scene);
-            } else {
-                scene.setRoot(root);
-                // Ensure minimum size is maintained
-                if (width < 800) width = 900;
-                if (height < 600) height = 700;
-                stage.setWidth(width);
-                stage.setHeight(height);
+    private void follow(Order order) {
+        if (order == shown) return;
+        if (subscription != null) subscription.close();
+        shown = order;
+        items.setAll(order.getItems());
+        subscription = order.subscribe(Main.events, this, CurrentOrderController::itemsChanged);
+        showTotals();
+    }
+    /**
+     * Applies a batch of changes to the followed order: one row inserted or
+     * removed per item, then the totals shown once.
+     *
+     * @param changes the changes, oldest first
+     */
+    private void itemsChanged(List<Order.Change> changes) {
+        for (Order.Change c : changes) {
+            switch (c.type()) {
+                case ADDED -> items.add(c.index(), c.item());
+                case REMOVED -> items.remove(c.index());
+                case CLEARED -> items.clear();
             }
-            stage.setTitle("RU Cafe");
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        showTotals();
+    }
+    /**
+     * Shows the subtotal, tax and total of the followed order. These are
+     * kept up to date by the order itself, so this does not revisit items.
+     */
+    private void showTotals() {
+        subtotalLabel.setText("$" + Money.format(shown.getSubtotalCents()));
+        taxLabel.setText("$" + Money.format(shown.getTaxCents()));
+        totalLabel.setText("$" + Money.format(shown.getTotalCents()));
+    }
+    /**
+     * Handles navigation back to the main menu view.
+     */
+    @FXML
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
     }
 
 
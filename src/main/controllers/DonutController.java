@@ -2,17 +2,14 @@ package main.controllers;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import main.Main;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
 import main.enums.DonutCategory;
 import main.model.Donut;
 import main.model.MenuItem;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
-import java.io.IOException;
+import main.model.Money;
 
 /**
  * Controller for the donut ordering view.
@@ -21,26 +18,14 @@ import java.io.IOException;
  */
 public class DonutController {
 
+    private static final Histogram PREVIEW_TIME = Metrics.histogram("ui.pricePreview");
+
     @FXML private ComboBox<String> donutTypeCombo;   // yeast, cake, holes, seasonal
     @FXML private ListView<String> flavorList;       // populate based on type
     @FXML private Spinner<Integer> qtySpinner;
     @FXML private Label priceLabel;
     @FXML private ImageView itemImage;
     @FXML private Button addBtn;
-
-    // Simple flavor sets – adjust names if your prof gave specific ones
-    private static final String[] YEAST_FLAVORS = {
-            "Glazed", "Chocolate", "Strawberry", "Sugar", "Boston Creme", "Jelly"
-    };
-    private static final String[] CAKE_FLAVORS = {
-            "Old Fashioned", "Blueberry", "Cinnamon"
-    };
-    private static final String[] HOLE_FLAVORS = {
-            "Glazed Holes", "Powdered Holes", "Cinnamon Holes"
-    };
-    private static final String[] SEASONAL_FLAVORS = {
-            "Spooky Donuts", "Pumpkin Spice Donuts"
-    };
     /**
      * Initializes the donut ordering view.
      * Sets up the donut type combo box, quantity spinner, selection listeners,
@@ -48,14 +33,6 @@ public class DonutController {
      */
     @FXML
     private void initialize() {
-        // Set window title
-        if (donutTypeCombo != null && donutTypeCombo.getScene() != null) {
-            Stage stage = (Stage) donutTypeCombo.getScene().getWindow();
-            if (stage != null) {
-                stage.setTitle("Ordering Donuts");
-            }
-        }
-        
         // Fill donut type combo
         donutTypeCombo.getItems().addAll("Yeast", "Cake", "Donut Holes", "Seasonal");
         donutTypeCombo.getSelectionModel().selectFirst();
@@ -123,8 +100,7 @@ public class DonutController {
 
     /**
      * Adds the currently selected donut (category, flavor, and quantity)
-     * to the shared current order, updates the current order view if open,
-     * and shows a confirmation alert.
+     * to the shared current order, and shows a confirmation alert.
      */
     @FXML
     private void onAddToOrder() {
@@ -141,10 +117,6 @@ public class DonutController {
         Donut donut = new Donut(type, flavor, qty);
         Main.currentOrder.addItem(donut);
 
-        if (Main.currentOrderController != null) {
-            Main.currentOrderController.refreshTotals();
-        }
-
         showAlert("Donut Added",
                 String.format("%s x%d added to current order.", flavor, qty));
 
@@ -152,7 +124,8 @@ public class DonutController {
     }
 
     /**
-     * Reloads the flavor list based on the currently selected donut type.
+     * Reloads the flavor list with the {@link DonutCategory#flavors() flavors}
+     * of the currently selected donut type.
      * If there are flavors available, the first flavor is automatically selected.
      */
     private void loadFlavorsForCurrentType() {
@@ -161,12 +134,7 @@ public class DonutController {
         if (type == null) {
             return;
         }
-        switch (type) {
-            case YEAST -> flavorList.getItems().addAll(YEAST_FLAVORS);
-            case CAKE -> flavorList.getItems().addAll(CAKE_FLAVORS);
-            case HOLE -> flavorList.getItems().addAll(HOLE_FLAVORS);
-            case SEASONAL -> flavorList.getItems().addAll(SEASONAL_FLAVORS);
-        }
+        flavorList.getItems().addAll(type.flavors());
         if (!flavorList.getItems().isEmpty()) {
             flavorList.getSelectionModel().selectFirst();
         }
@@ -192,46 +160,35 @@ public class DonutController {
 
     /**
      * Updates the donut image preview based on the currently selected donut type.
-     * Currently all donut types use the same image resource.
-     * If the image cannot be loaded, the image view is cleared.
+     * Currently all donut types use the same image, which the shared
+     * {@link ImageCache} decodes once.
      */
     private void updateImage() {
-        DonutCategory type = getSelectedType();
-        if (type == null) {
-            // Load default donuts image
-            try {
-                itemImage.setImage(new Image(getClass().getResourceAsStream("/images/donuts.jpg")));
-            } catch (Exception e) {
-                itemImage.setImage(null);
-            }
-            return;
-        }
-        // Use the donuts.jpg image for all donut types
-        try {
-            itemImage.setImage(new Image(getClass().getResourceAsStream("/images/donuts.jpg")));
-        } catch (Exception e) {
-            // If image missing, just ignore
-            itemImage.setImage(null);
-        }
+        ImageCache.show(itemImage, "donuts.jpg");
     }
 
     /**
      * Computes and displays the current price of the selected donut order
-     * using the {@link Donut#price()} method. If the selection is incomplete,
+     * using the {@link Donut#priceCents()} method. If the selection is incomplete,
      * the price label is reset to $0.00.
      */
     private void updatePrice() {
-        DonutCategory type = getSelectedType();
-        String flavor = flavorList.getSelectionModel().getSelectedItem();
-        Integer qty = qtySpinner.getValue();
+        long start = System.nanoTime();
+        try {
+            DonutCategory type = getSelectedType();
+            String flavor = flavorList.getSelectionModel().getSelectedItem();
+            Integer qty = qtySpinner.getValue();
 
-        if (type == null || flavor == null || qty == null) {
-            priceLabel.setText("Price: $0.00");
-            return;
+            if (type == null || flavor == null || qty == null) {
+                priceLabel.setText("Price: $0.00");
+                return;
+            }
+            Donut temp = new Donut(type, flavor, qty);
+            long p = temp.priceCents();
+            priceLabel.setText("Price: $" + Money.format(p));
+        } finally {
+            PREVIEW_TIME.recordSince(start);
         }
-        Donut temp = new Donut(type, flavor, qty);
-        double p = temp.price();
-        priceLabel.setText(String.format("Price: $%.2f", p));
     }
     /**
      * Displays an informational alert dialog with the given title and message.
@@ -247,42 +204,11 @@ public class DonutController {
         alert.showAndWait();
     }
     /**
-     * Handles navigation back to the main view (main-view.fxml) from the donut view.
-     * This version uses the event source to preserve the existing window size and styling.
-     *
-     * @param event the action event generated by clicking the back button
+     * Handles navigation back to the main menu view.
      */
     @FXML
-    private void onBackToMainMenu(javafx.event.ActionEvent event) {
-        try {
-            javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(
-                    getClass().getResource("/main-view.fxml")
-            );
-            javafx.stage.Stage stage =
-                    (javafx.stage.Stage) ((javafx.scene.Node) event.getSource())
-                            .getScene().getWindow();
-            
-            // Preserve window size
-            double width = stage.getWidth();
-            double height = stage.getHeight();
-            
-            javafx.scene.Scene scene = stage.getScene();
-            if (scene == null) {
-                scene = new javafx.scene.Scene(root, width, height);
-                scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-                stage.setScene(scene);
-            } else {
-                scene.setRoot(root);
-                // Ensure minimum size is maintained
-                if (width < 800) width = 900;
-                if (height < 600) height = 700;
-                stage.setWidth(width);
-                stage.setHeight(height);
-            }
-            stage.setTitle("RU Cafe");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
     }
 
 
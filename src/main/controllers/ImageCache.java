@@ -0,0 +1,91 @@
+package main.controllers;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.stage.Screen;
+
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Application-wide cache of the images under {@code /images}.
+ * <p>
+ * Each image is decoded once, on the JavaFX background loader thread, at
+ * the size it is displayed rather than at the full resolution of the file,
+ * and the same {@link Image} is handed to every view that shows it. The
+ * cache keeps the most recently used images up to {@link #MAX_BYTES} of
+ * decoded pixels and drops the least recently used ones beyond that; an
+ * image that is dropped stays valid for the views already showing it.
+ * </p>
+ */
+public final class ImageCache {
+    /** Budget for decoded pixels held by the cache, in bytes. */
+    public static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    /** Images by "name@widthxheight", least recently used first. */
+    private static final LinkedHashMap<String, Image> IMAGES = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ImageCache() {
+    }
+
+    /**
+     * Shows a cached image in an image view, decoded at the view's fit size.
+     *
+     * @param view the image view; its fitWidth and fitHeight give the size
+     * @param name file name under {@code /images}, e.g. {@code "coffee.jpg"}
+     */
+    public static void show(ImageView view, String name) {
+        view.setImage(get(name, view.getFitWidth(), view.getFitHeight()));
+    }
+
+    /**
+     * Returns a cached image, starting to load it in the background if it is
+     * not cached yet. The image keeps its aspect ratio and fits within the
+     * given size, scaled up for the screen's output scale.
+     *
+     * @param name   file name under {@code /images}
+     * @param width  display width, or 0 to derive it from the height
+     * @param height display height, or 0 to derive it from the width
+     * @return the image, or null if there is no such file
+     */
+    public static synchronized Image get(String name, double width, double height) {
+        String key = name + "@" + width + "x" + height;
+        Image image = IMAGES.get(key);
+        if (image != null && !image.isError()) return image;
+
+        URL url = ImageCache.class.getResource("/images/" + name);
+        if (url == null) return null;
+        double scale = Screen.getPrimary().getOutputScaleX();
+        image = new Image(url.toExternalForm(), width * scale, height * scale, true, true, true);
+        IMAGES.put(key, image);
+        evict();
+        return image;
+    }
+
+    /** Drops least recently used images until the cache is within budget. */
+    private static void evict() {
+        long bytes = 0;
+        for (Image image : IMAGES.values()) bytes += bytes(image);
+        Iterator<Image> it = IMAGES.values().iterator();
+        while (bytes > MAX_BYTES && IMAGES.size() > 1) {
+            bytes -= bytes(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the decoded size of an image, estimated from the requested size
+     * until it has loaded.
+     *
+     * @param image the image
+     * @return size in bytes at four bytes per pixel
+     */
+    private static long bytes(Image image) {
+        double w = image.getWidth() > 0 ? image.getWidth() : image.getRequestedWidth();
+        double h = image.getHeight() > 0 ? image.getHeight() : image.getRequestedHeight();
+        if (w == 0) w = h;
+        if (h == 0) h = w;
+        return (long) (w * h) * 4;
+    }
+}
@@ -0,0 +1,193 @@
+package main.controllers;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.util.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import main.Main;
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Kitchen;
+import main.model.MenuItem;
+import main.model.Sandwich;
+/**
+ * Controller for the kitchen display.
+ * Shows each station's tickets in the order they are planned to start, and
+ * lets the cooks start the next due ticket and mark tickets done.
+ * <p>
+ * Ticket changes arrive through {@link Main#events}; each batch reloads only
+ * the stations it touched. While the view is shown, a once-a-second timer
+ * redraws the rows so the countdown to each waiting ticket's start stays
+ * current.
+ * </p>
+ */
+public class KitchenController implements ViewRouter.ShowListener {
+
+    @FXML private ListView<Kitchen.Ticket> caseList, barList, grillList;
+    @FXML private Label statusLabel;
+    /** The tickets shown for each station. */
+    private final Map<Kitchen.Station, ObservableList<Kitchen.Ticket>> tickets = new EnumMap<>(Kitchen.Station.class);
+    private final Map<Kitchen.Station, ListView<Kitchen.Ticket>> lists = new EnumMap<>(Kitchen.Station.class);
+    /** Redraws the countdowns while the view is shown; created on the JavaFX thread. */
+    private Timeline clock;
+    private boolean subscribed;
+    /**
+     * Sets up each station's list and its cells. This may run on the
+     * preloading thread, so the timer is left to {@link #onShow()}.
+     */
+    @FXML
+    private void initialize() {
+        lists.put(Kitchen.Station.CASE, caseList);
+        lists.put(Kitchen.Station.BAR, barList);
+        lists.put(Kitchen.Station.GRILL, grillList);
+        lists.forEach((station, list) -> {
+            ObservableList<Kitchen.Ticket> rows = FXCollections.observableArrayList();
+            tickets.put(station, rows);
+            list.setItems(rows);
+            list.setCellFactory(l -> new ListCell<>() {
+                @Override
+                protected void updateItem(Kitchen.Ticket ticket, boolean empty) {
+                    super.updateItem(ticket, empty);
+                    setText(empty || ticket == null ? null : describe(ticket));
+                }
+            });
+        });
+    }
+    /**
+     * Loads the stations the first time the view is shown and from then on
+     * follows {@link Main#kitchen}, and starts the countdown timer.
+     */
+    @Override
+    public void onShow() {
+        if (clock == null) {
+            clock = new Timeline(new KeyFrame(Duration.seconds(1), e -> lists.values().forEach(ListView::refresh)));
+            clock.setCycleCount(Timeline.INDEFINITE);
+        }
+        lists.values().forEach(ListView::refresh);
+        clock.play();
+        if (subscribed) return;
+        subscribed = true;
+        Main.kitchen.subscribe(Main.events, this, KitchenController::ticketsChanged);
+        reload(EnumSet.allOf(Kitchen.Station.class));
+    }
+    /**
+     * Stops the countdown timer while another view is shown.
+     */
+    @Override
+    public void onHide() {
+        if (clock != null) clock.stop();
+    }
+    /**
+     * Reloads the stations touched by a batch of ticket changes.
+     *
+     * @param changed the tickets queued, started, done or cancelled
+     */
+    private void ticketsChanged(List<Kitchen.Ticket> changed) {
+        Set<Kitchen.Station> stations = EnumSet.noneOf(Kitchen.Station.class);
+        for (Kitchen.Ticket t : changed) stations.add(t.getStation());
+        reload(stations);
+    }
+    private void reload(Set<Kitchen.Station> stations) {
+        for (Kitchen.Station s : stations) tickets.get(s).setAll(Main.kitchen.tickets(s));
+        StringBuilder sb = new StringBuilder();
+        for (Kitchen.Station s : Kitchen.Station.values()) {
+            sb.append(sb.length() == 0 ? "" : "   ").append(s).append(' ')
+                    .append(Main.kitchen.depth(s)).append('/').append(Main.kitchen.getCapacity());
+        }
+        statusLabel.setText(sb.toString());
+    }
+    /**
+     * Handles "Start Next" for a station: hands its next due ticket to the
+     * cook, or says when the next one is due.
+     *
+     * @param event the button press; the button's user data names the station
+     */
+    @FXML
+    private void onStartNext(ActionEvent event) {
+        Kitchen.Station station = station(event);
+        if (Main.kitchen.poll(station) != null) return; // the list updates through the subscription
+        List<Kitchen.Ticket> waiting = tickets.get(station).filtered(t -> !t.isStarted());
+        statusLabel.setText(waiting.isEmpty() ? "No tickets for the " + station + "."
+                : "Next " + station + " ticket starts " + countdown(waiting.get(0)) + ".");
+    }
+    /**
+     * Handles "Done" for a station: marks the selected ticket done if it is
+     * being prepared, otherwise the station's oldest ticket in preparation.
+     *
+     * @param event the button press; the button's user data names the station
+     */
+    @FXML
+    private void onDone(ActionEvent event) {
+        Kitchen.Station station = station(event);
+        Kitchen.Ticket ticket = lists.get(station).getSelectionModel().getSelectedItem();
+        if (ticket == null || !ticket.isStarted() || ticket.isDone()) {
+            ticket = null;
+            for (Kitchen.Ticket t : tickets.get(station)) {
+                if (t.isStarted() && !t.isDone()) {
+                    ticket = t;
+                    break;
+                }
+            }
+        }
+        if (ticket == null) {
+            statusLabel.setText("Nothing is being prepared at the " + station + ".");
+            return;
+        }
+        try {
+            Main.kitchen.done(ticket);
+        } catch (IllegalStateException e) {
+            e.printStackTrace(); // already done from elsewhere; the list catches up on the next batch
+        }
+    }
+    private static Kitchen.Station station(ActionEvent event) {
+        return Kitchen.Station.valueOf((String) ((Node) event.getSource()).getUserData());
+    }
+    /**
+     * Describes a ticket for the display: its order, its state, and one line
+     * per item without prices.
+     *
+     * @param ticket the ticket
+     * @return the row text
+     */
+    private static String describe(Kitchen.Ticket ticket) {
+        StringBuilder sb = new StringBuilder("#").append(ticket.getOrderNumber()).append("  ");
+        sb.append(ticket.isStarted() ? "PREPARING" : "start " + countdown(ticket));
+        for (MenuItem item : ticket.getItems()) {
+            sb.append("\n  ").append(item.getQuantity()).append(" × ");
+            if (item instanceof Donut d) {
+                sb.append(d.getFlavor()).append(" (").append(d.getType()).append(')');
+            } else if (item instanceof Coffee c) {
+                sb.append(c.getSize()).append(" coffee");
+                for (AddIns a : c.getAddIns()) sb.append(", ").append(a);
+            } else if (item instanceof Sandwich s) {
+                sb.append(s.getProtein()).append(" on ").append(s.getBread());
+                for (AddOns a : s.getAddOns()) sb.append(", ").append(a);
+            }
+        }
+        return sb.toString();
+    }
+    private static String countdown(Kitchen.Ticket ticket) {
+        long seconds = ticket.getDelay(TimeUnit.SECONDS);
+        return seconds <= 0 ? "now" : String.format("in %d:%02d", seconds / 60, seconds % 60);
+    }
+    /**
+     * Handles navigation back to the main menu view.
+     */
+    @FXML
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
+    }
+}
@@ -2,12 +2,16 @@ package main.controllers;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
 import main.Main;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
 import main.enums.Bread;
 import main.enums.Protein;
 import main.enums.AddOns;
 import main.model.Sandwich;
 import main.model.MenuItem;
+import main.model.Money;
 /**
  * Controller for the sandwich ordering view.
  * Manages bread, protein, add-on selections and quantity, provides live
@@ -15,26 +19,23 @@ import main.model.MenuItem;
  */
 public class SandwichController {
 
+    private static final Histogram PREVIEW_TIME = Metrics.histogram("ui.pricePreview");
+
     @FXML private ToggleGroup proteinGroup; // beef, chicken, salmon
     @FXML private ToggleGroup breadGroup;   // bagel, wheat, sourdough
     @FXML private CheckBox cheese, lettuce, tomato, onion;
     @FXML private Spinner<Integer> qtySpinner;
     @FXML private Label priceLabel;
     @FXML private Button addBtn;
+    @FXML private ImageView sandwichImage;
     /**
      * Initializes the sandwich ordering view by configuring the quantity spinner,
      * registering listeners on all controls, and computing the initial price.
      */
     @FXML
     private void initialize() {
-        // Set window title
-        if (qtySpinner != null && qtySpinner.getScene() != null) {
-            javafx.stage.Stage stage = (javafx.stage.Stage) qtySpinner.getScene().getWindow();
-            if (stage != null) {
-                stage.setTitle("Ordering Sandwich");
-            }
-        }
-        
+        ImageCache.show(sandwichImage, "sandwich.jpg");
+
         // quantity 1–10
         SpinnerValueFactory<Integer> vf =
                 new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 10, 1);
@@ -64,8 +65,7 @@ public class SandwichController {
     /**
      * Handles the "Add to Order" button click.
      * Creates a {@link Sandwich} based on user selections, adds it to
-     * {@link Main#currentOrder}, refreshes the current order view if open,
-     * and shows a confirmation alert. If a required selection is missing,
+     * {@link Main#currentOrder}, and shows a confirmation alert. If a required selection is missing,
      * a warning alert is shown instead.
      */
     @FXML
@@ -88,9 +88,6 @@ public class SandwichController {
 
         Main.currentOrder.addItem(s);
 
-        if (Main.currentOrderController != null) {
-            Main.currentOrderController.refreshTotals();
-        }
 
         showAlert("Sandwich Added", "Sandwich added to current order.");
     }
@@ -100,24 +97,29 @@ public class SandwichController {
      * are missing, the price is shown as $0.00.
      */
     private void updatePrice() {
-        Protein protein = getSelectedProtein();
-        Bread bread = getSelectedBread(); // bread doesn’t change price but used to validate
-        Integer qty = qtySpinner.getValue();
+        long start = System.nanoTime();
+        try {
+            Protein protein = getSelectedProtein();
+            Bread bread = getSelectedBread(); // bread doesn’t change price but used to validate
+            Integer qty = qtySpinner.getValue();
 
-        if (protein == null || bread == null || qty == null) {
-            priceLabel.setText("$0.00");
-            return;
-        }
+            if (protein == null || bread == null || qty == null) {
+                priceLabel.setText("$0.00");
+                return;
+            }
 
-        Sandwich temp = new Sandwich(bread, protein, qty);
+            Sandwich temp = new Sandwich(bread, protein, qty);
 
-        if (cheese.isSelected()) temp.addAddOn(AddOns.CHEESE);
-        if (lettuce.isSelected()) temp.addAddOn(AddOns.LETTUCE);
-        if (tomato.isSelected()) temp.addAddOn(AddOns.TOMATOES);
-        if (onion.isSelected()) temp.addAddOn(AddOns.ONIONS);
+            if (cheese.isSelected()) temp.addAddOn(AddOns.CHEESE);
+            if (lettuce.isSelected()) temp.addAddOn(AddOns.LETTUCE);
+            if (tomato.isSelected()) temp.addAddOn(AddOns.TOMATOES);
+            if (onion.isSelected()) temp.addAddOn(AddOns.ONIONS);
 
-        double p = temp.price();
-        priceLabel.setText(String.format("$%.2f", p));
+            long p = temp.priceCents();
+            priceLabel.setText("$" + Money.format(p));
+        } finally {
+            PREVIEW_TIME.recordSince(start);
+        }
     }
     /**
      * Determines the selected protein based on the text of the chosen radio button.
@@ -161,42 +163,11 @@ public class SandwichController {
         a.showAndWait();
     }
     /**
-     * Handles navigation back to the main menu view (main-view.fxml).
-     * Preserves the current window size and reapplies the stylesheet.
-     *
-     * @param event the action event triggered by the Back button
+     * Handles navigation back to the main menu view.
      */
     @FXML
-    private void onBackToMainMenu(javafx.event.ActionEvent event) {
-        try {
-            javafx.scene.Parent root = javafx.fxml.FXMLLoader.load(
-                    getClass().getResource("/main-view.fxml")
-            );
-            javafx.stage.Stage stage =
-                    (javafx.stage.Stage) ((javafx.scene.Node) event.getSource())
-                            .getScene().getWindow();
-            
-            // Preserve window size
-            double width = stage.getWidth();
-            double height = stage.getHeight();
-            
-            javafx.scene.Scene scene = stage.getScene();
-            if (scene == null) {
-                scene = new javafx.scene.Scene(root, width, height);
-                scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
-                stage.setScene(scene);
-            } else {
-                scene.setRoot(root);
-                // Ensure minimum size is maintained
-                if (width < 800) width = 900;
-                if (height < 600) height = 700;
-                stage.setWidth(width);
-                stage.setHeight(height);
-            }
-            stage.setTitle("RU Cafe");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private void onBackToMainMenu() {
+        Main.router.show(ViewRouter.View.MAIN);
     }
 
 }
@@ -0,0 +1,155 @@
+package main.controllers;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Navigates between the application's screens inside one window.
+ * <p>
+ * Each FXML view is loaded at most once and then kept, so going back to a
+ * screen reuses its nodes and controller. The window has a single
+ * {@link Scene}, with the stylesheet added once; switching screens only
+ * swaps the scene's root, so the window keeps its size.
+ * </p>
+ * <p>
+ * {@link #preload()} loads the other views on a background thread after
+ * startup. If a screen is opened while it is still loading, the router
+ * waits for that load instead of starting a second one.
+ * </p>
+ */
+public final class ViewRouter {
+
+    /** The application's screens and their window titles. */
+    public enum View {
+        MAIN("main-view.fxml", "RU Cafe"),
+        COFFEE("coffee-view.fxml", "Ordering Coffee"),
+        DONUTS("donut-view.fxml", "Ordering Donuts"),
+        SANDWICH("sandwich-view.fxml", "Ordering Sandwich"),
+        CURRENT_ORDER("current-order-view.fxml", "Current Order"),
+        STORE_ORDERS("all-orders-view.fxml", "Store Orders"),
+        KITCHEN("kitchen-view.fxml", "Kitchen");
+
+        private final String fxml;
+        private final String title;
+
+        View(String fxml, String title) {
+            this.fxml = fxml;
+            this.title = title;
+        }
+    }
+
+    /**
+     * Implemented by controllers whose screen shows data that can change
+     * while the screen is hidden, such as the current order.
+     */
+    public interface ShowListener {
+        /** Called on the JavaFX thread each time the screen is shown. */
+        void onShow();
+
+        /**
+         * Called on the JavaFX thread each time another screen replaces this
+         * one, e.g. to stop animations that only matter while it is shown.
+         */
+        default void onHide() {
+        }
+    }
+
+    private static final Histogram SHOW_TIME = Metrics.histogram("ui.showView");
+
+    private final Stage stage;
+    private final Scene scene;
+    private final Map<View, FutureTask<FXMLLoader>> views = new ConcurrentHashMap<>();
+    /** The loader of the screen shown now. */
+    private FXMLLoader current;
+
+    /**
+     * Creates a router for the given window and shows the main menu.
+     *
+     * @param stage  the application window
+     * @param width  initial scene width
+     * @param height initial scene height
+     */
+    public ViewRouter(Stage stage, double width, double height) {
+        this.stage = stage;
+        this.current = load(View.MAIN);
+        this.scene = new Scene(current.getRoot(), width, height);
+        scene.getStylesheets().add(getClass().getResource("/app.css").toExternalForm());
+        stage.setScene(scene);
+        stage.setTitle(View.MAIN.title);
+    }
+
+    /**
+     * Shows a screen, loading it first if it has not been loaded yet.
+     * Must be called on the JavaFX thread.
+     *
+     * @param view the screen to show
+     */
+    public void show(View view) {
+        long start = System.nanoTime();
+        try {
+            FXMLLoader loader = load(view);
+            if (loader != current && current.getController() instanceof ShowListener previous) previous.onHide();
+            current = loader;
+            scene.setRoot(loader.getRoot());
+            stage.setTitle(view.title);
+            if (loader.getController() instanceof ShowListener listener) listener.onShow();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            SHOW_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * Loads every screen not loaded yet on a background thread, so that
+     * opening it later does not wait for FXML parsing.
+     */
+    public void preload() {
+        ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "view-preload");
+            t.setDaemon(true);
+            return t;
+        });
+        for (View view : View.values()) loader.execute(task(view));
+        loader.shutdown();
+    }
+
+    /**
+     * Returns the loader of a view, running its load on this thread unless
+     * another thread has already loaded it or is loading it now.
+     *
+     * @param view the view
+     * @return the loader, with its root and controller
+     */
+    private FXMLLoader load(View view) {
+        FutureTask<FXMLLoader> task = task(view);
+        task.run(); // no-op if already run or running elsewhere
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading " + view.fxml, e);
+        } catch (ExecutionException e) {
+            views.remove(view, task); // let the next attempt try again
+            throw new IllegalStateException("cannot load " + view.fxml, e.getCause());
+        }
+    }
+
+    private FutureTask<FXMLLoader> task(View view) {
+        return views.computeIfAbsent(view, v -> new FutureTask<>(() -> {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/" + v.fxml));
+            loader.load();
+            return loader;
+        }));
+    }
+}
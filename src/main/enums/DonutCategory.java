@@ -1,7 +1,22 @@
 package main.enums;
+
+import java.util.List;
 /**
- * Categories of donuts offered by the cafe.
+ * Categories of donuts offered by the cafe, each with the flavors it comes in.
  */
 public enum DonutCategory {
-    YEAST, CAKE, HOLE, SEASONAL
+    YEAST("Glazed", "Chocolate", "Strawberry", "Sugar", "Boston Creme", "Jelly"),
+    CAKE("Old Fashioned", "Blueberry", "Cinnamon"),
+    HOLE("Glazed Holes", "Powdered Holes", "Cinnamon Holes"),
+    SEASONAL("Spooky Donuts", "Pumpkin Spice Donuts");
+
+    private final List<String> flavors;
+    DonutCategory(String... flavors) { this.flavors = List.of(flavors); }
+
+    /**
+     * Returns the flavors offered in this category, in menu order.
+     *
+     * @return read-only list of flavor names
+     */
+    public List<String> flavors() { return flavors; }
 }
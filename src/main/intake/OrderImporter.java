@@ -0,0 +1,456 @@
+package main.intake;
+
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+import main.model.MenuItem;
+import main.model.Order;
+import main.model.OrderJournal;
+import main.model.OrderNumbers;
+import main.model.StoreOrders;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports orders in bulk from files, for catering and pre-orders that
+ * arrive as files rather than at the register.
+ * <p>
+ * Two formats are read, chosen by file extension:
+ * </p>
+ * <ul>
+ *   <li>{@code .jsonl}: one order per line, in the JSON format of
+ *       {@link OrderJson}.</li>
+ *   <li>{@code .csv}: one item per line, with the columns
+ *       {@code order,type,kind,variant,quantity,extras}. Consecutive lines
+ *       with the same {@code order} reference form one order. {@code kind}
+ *       is the donut category, cup size or bread; {@code variant} the
+ *       flavor or protein (empty for coffee); {@code extras} the add-ins or
+ *       add-ons separated by {@code ;}. Fields may be quoted. A first line
+ *       starting with {@code order,} is taken as a header.</li>
+ * </ul>
+ * <p>
+ * The file is read on the calling thread in chunks of about
+ * {@link #CHUNK_LINES} lines, never splitting an order. Chunks are parsed,
+ * checked against the menu and built into orders on a pool of worker
+ * threads, and added to the store in file order, one
+ * {@link StoreOrders#addOrders(java.util.Collection) batch} per chunk. At
+ * most a few chunks per worker are in flight at once, so memory use does
+ * not grow with the file. Each chunk's orders are numbered from one block
+ * of consecutive numbers.
+ * </p>
+ * <p>
+ * An order with any invalid line is skipped and reported in the
+ * {@link Result}; the rest of the file is still imported. Imported orders
+ * are journaled but are not sent to the kitchen. Interrupting the
+ * importing thread stops the import with an {@link InterruptedIOException};
+ * chunks already added stay in the store, and their journal records are
+ * already queued.
+ * </p>
+ */
+public final class OrderImporter {
+    /** Lines read into one chunk before it is handed to a worker. */
+    public static final int CHUNK_LINES = 4096;
+    /** Most error messages kept in a {@link Result}. */
+    public static final int MAX_ERRORS = 100;
+
+    private static final Histogram IMPORT_TIME = Metrics.histogram("import.file");
+
+    private OrderImporter() {
+    }
+
+    /** The supported file formats. */
+    public enum Format {
+        /** One item per line, grouped into orders by reference. */
+        CSV,
+        /** One JSON order per line. */
+        JSONL;
+
+        /**
+         * Returns the format of a file by its extension: {@code .csv}, or
+         * {@code .jsonl} / {@code .ndjson}.
+         *
+         * @param file the file
+         * @return its format
+         * @throws IllegalArgumentException if the extension is not known
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSONL;
+            throw new IllegalArgumentException("not a .csv or .jsonl file: " + file.getFileName());
+        }
+    }
+
+    /**
+     * What an import did.
+     *
+     * @param orders   orders added to the store
+     * @param items    items in those orders
+     * @param rejected orders skipped because a line was invalid
+     * @param errors   the first {@link #MAX_ERRORS} reasons, with line numbers
+     * @param nanos    how long the import took
+     */
+    public record Result(int orders, int items, int rejected, List<String> errors, long nanos) {
+    }
+
+    /** Told of the progress of an import. */
+    public interface Progress {
+        /**
+         * Called on the importing thread after each chunk is added.
+         *
+         * @param orders    orders imported so far
+         * @param charsRead characters of the file read so far
+         */
+        void imported(int orders, long charsRead);
+    }
+
+    /**
+     * Imports an order file, in the format given by its extension, using a
+     * worker per available processor.
+     *
+     * @param file     the file, UTF-8
+     * @param store    the store to add the orders to
+     * @param journal  the journal listening to {@code store}, waited on so it
+     *                 keeps up with the import, or null
+     * @param progress told of progress after each chunk, or null
+     * @return what was imported
+     * @throws IOException              if reading fails or the thread is interrupted
+     * @throws IllegalArgumentException if the file's format is not known
+     */
+    public static Result importFile(Path file, StoreOrders store, OrderJournal journal, Progress progress)
+            throws IOException {
+        Format format = Format.of(file);
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(in, format, store, journal, progress, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Imports orders from a reader. The reader is not closed.
+     *
+     * @param in       the order lines
+     * @param format   their format
+     * @param store    the store to add the orders to
+     * @param journal  the journal listening to {@code store}, waited on so it
+     *                 keeps up with the import, or null
+     * @param progress told of progress after each chunk, or null
+     * @param workers  number of threads parsing chunks
+     * @return what was imported
+     * @throws IOException if reading fails or the thread is interrupted
+     */
+    public static Result importFrom(Reader in, Format format, StoreOrders store, OrderJournal journal,
+                                    Progress progress, int workers) throws IOException {
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1");
+        long start = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "order-import-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        ChunkReader reader = new ChunkReader(in instanceof BufferedReader b ? b : new BufferedReader(in), format);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        Totals totals = new Totals();
+        try {
+            for (Lines lines; (lines = reader.next()) != null; ) {
+                if (inFlight.size() >= 2 * workers) totals.add(take(inFlight), store, journal);
+                Lines chunk = lines;
+                inFlight.add(pool.submit(() -> parse(chunk, format)));
+                if (progress != null) progress.imported(totals.orders, reader.charsRead);
+            }
+            while (!inFlight.isEmpty()) {
+                totals.add(take(inFlight), store, journal);
+                if (progress != null) progress.imported(totals.orders, reader.charsRead);
+            }
+            totals.awaitJournal();
+        } finally {
+            pool.shutdownNow();
+        }
+        long nanos = System.nanoTime() - start;
+        IMPORT_TIME.record(nanos);
+        return new Result(totals.orders, totals.items, totals.rejected, List.copyOf(totals.errors), nanos);
+    }
+
+    private static Chunk take(ArrayDeque<Future<Chunk>> inFlight) throws IOException {
+        try {
+            return inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("import cancelled");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Parses a chunk of lines into orders on a worker thread. Valid orders
+     * are numbered from one block reserved for exactly their count.
+     *
+     * @param lines  the chunk
+     * @param format the lines' format
+     * @return the chunk's orders and errors
+     */
+    private static Chunk parse(Lines lines, Format format) {
+        List<List<MenuItem>> parsed = new ArrayList<>();
+        Chunk chunk = new Chunk();
+        if (format == Format.JSONL) {
+            for (int i = 0; i < lines.text.size(); i++) {
+                String line = lines.text.get(i);
+                if (line.isBlank()) continue;
+                try {
+                    parsed.add(OrderJson.items(line));
+                } catch (IllegalArgumentException e) {
+                    chunk.reject(lines.first + i, e.getMessage());
+                }
+            }
+        } else {
+            List<MenuItem> items = null;
+            String ref = null;
+            boolean bad = false;
+            for (int i = 0; i < lines.text.size(); i++) {
+                String line = lines.text.get(i);
+                if (line.isBlank()) continue;
+                String lineRef = reference(line);
+                if (!lineRef.equals(ref)) { // the next order starts
+                    if (items != null && !bad) parsed.add(items);
+                    items = new ArrayList<>();
+                    ref = lineRef;
+                    bad = false;
+                }
+                if (bad) continue; // one error per order is enough
+                try {
+                    if (items.size() == OrderJson.MAX_ITEMS) {
+                        throw new IllegalArgumentException("at most " + OrderJson.MAX_ITEMS + " items per order");
+                    }
+                    items.add(OrderJson.item(csvItem(csvFields(line))));
+                } catch (IllegalArgumentException e) {
+                    chunk.reject(lines.first + i, "order " + ref + ": " + e.getMessage());
+                    bad = true;
+                }
+            }
+            if (items != null && !bad) parsed.add(items);
+        }
+        if (!parsed.isEmpty()) {
+            OrderNumbers.Block numbers = OrderNumbers.reserve(parsed.size());
+            for (List<MenuItem> items : parsed) {
+                Order order = new Order(numbers);
+                for (MenuItem item : items) order.addItem(item);
+                chunk.orders.add(order);
+                chunk.items += items.size();
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Turns a CSV row into the fields {@link OrderJson#item(Map)} reads.
+     *
+     * @param row the row's fields
+     * @return the item's fields by name
+     */
+    private static Map<String, Object> csvItem(String[] row) {
+        if (row.length != 6) throw new IllegalArgumentException("expected 6 columns, found " + row.length);
+        Map<String, Object> item = new HashMap<>();
+        String type = row[1].trim().toLowerCase(Locale.ROOT);
+        item.put("type", type);
+        try {
+            if (!row[4].isBlank()) item.put("quantity", Long.parseLong(row[4].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity \"" + row[4] + "\" is not a number");
+        }
+        List<String> extras = new ArrayList<>();
+        for (String extra : row[5].split(";")) if (!extra.isBlank()) extras.add(extra.trim());
+        switch (type) {
+            case "donut" -> {
+                item.put("category", row[2]);
+                item.put("flavor", row[3].trim());
+            }
+            case "coffee" -> {
+                item.put("size", row[2]);
+                item.put("addIns", extras);
+            }
+            case "sandwich" -> {
+                item.put("bread", row[2]);
+                item.put("protein", row[3]);
+                item.put("addOns", extras);
+            }
+            default -> { } // OrderJson.item reports the unknown type
+        }
+        return item;
+    }
+
+    /**
+     * Splits a CSV line into fields. A field may be quoted with {@code "},
+     * and a quote inside a quoted field is written twice.
+     *
+     * @param line the line
+     * @return its fields
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static String[] csvFields(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unclosed quote");
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the order reference of a CSV line: its text up to the first
+     * comma, as written (quotes included), so that the reader and the
+     * parsers group lines the same way.
+     *
+     * @param line the line
+     * @return the reference
+     */
+    private static String reference(String line) {
+        int comma = line.indexOf(',');
+        return comma < 0 ? line : line.substring(0, comma);
+    }
+
+    /** A chunk of lines and the line number of its first. */
+    private record Lines(int first, List<String> text) {
+    }
+
+    /**
+     * Reads a file into chunks of lines. A CSV chunk is extended past
+     * {@link #CHUNK_LINES} until the order reference changes, so no order is
+     * split between chunks.
+     */
+    private static final class ChunkReader {
+        private final BufferedReader in;
+        private final Format format;
+        private int lineNumber;
+        private long charsRead;
+        /** A line read ahead that starts the next chunk, or null. */
+        private String carry;
+
+        ChunkReader(BufferedReader in, Format format) {
+            this.in = in;
+            this.format = format;
+        }
+
+        Lines next() throws IOException {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("import cancelled");
+            List<String> text = new ArrayList<>(CHUNK_LINES + 16);
+            int first = lineNumber + 1 - (carry == null ? 0 : 1);
+            if (carry != null) {
+                text.add(carry);
+                carry = null;
+            }
+            String lastRef = null;
+            for (String line; (line = in.readLine()) != null; ) {
+                lineNumber++;
+                charsRead += line.length() + 1;
+                if (lineNumber == 1 && format == Format.CSV && line.startsWith("order,")) {
+                    first = 2; // header
+                    continue;
+                }
+                if (text.size() < CHUNK_LINES) {
+                    text.add(line);
+                    if (text.size() == CHUNK_LINES) lastRef = reference(line);
+                    if (text.size() == CHUNK_LINES && format == Format.JSONL) break;
+                } else if (reference(line).equals(lastRef)) {
+                    text.add(line); // the same CSV order continues
+                } else {
+                    carry = line;
+                    break;
+                }
+            }
+            return text.isEmpty() ? null : new Lines(first, text);
+        }
+    }
+
+    /** The orders built from one chunk and the errors found in it. */
+    private static final class Chunk {
+        final List<Order> orders = new ArrayList<>();
+        int items;
+        int rejected;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(int line, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) errors.add("line " + line + ": " + message);
+        }
+    }
+
+    /** Running totals, and the journal write of the latest chunk. */
+    private static final class Totals {
+        int orders;
+        int items;
+        int rejected;
+        final List<String> errors = new ArrayList<>();
+        CompletableFuture<Void> journaled;
+
+        /**
+         * Adds a parsed chunk to the store, whose journal listener queues its
+         * records as it is added, then waits for the previous chunk's records
+         * to be written, so the journal's queue stays bounded too.
+         */
+        void add(Chunk chunk, StoreOrders store, OrderJournal journal) throws IOException {
+            orders += store.addOrders(chunk.orders);
+            items += chunk.items;
+            rejected += chunk.rejected;
+            for (String e : chunk.errors) if (errors.size() < MAX_ERRORS) errors.add(e);
+            if (journal == null || chunk.orders.isEmpty()) return;
+            CompletableFuture<Void> previous = journaled;
+            journaled = journal.flushed();
+            await(previous);
+        }
+
+        void awaitJournal() throws IOException {
+            await(journaled);
+        }
+
+        private static void await(CompletableFuture<Void> journaled) throws IOException {
+            if (journaled == null) return;
+            try {
+                journaled.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("import cancelled");
+            } catch (ExecutionException e) {
+                throw new IOException("journal write failed", e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package main.intake;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import main.metrics.Counter;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+import main.model.Kitchen;
+import main.model.Order;
+import main.model.OrderJournal;
+import main.model.StoreOrders;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP endpoint through which kiosks and pickup screens on the same
+ * machine place and look up orders, alongside the cashier UI.
+ * <ul>
+ *   <li>{@code POST /orders} with an order in the JSON format of
+ *       {@link OrderJson} places it and answers {@code 201} with its number
+ *       and totals, {@code 400} with an error message, or {@code 503} if
+ *       the kitchen stayed too busy to take it.</li>
+ *   <li>{@code GET /orders/<number>} answers {@code 200} with the number and
+ *       totals of a placed order, or {@code 404}.</li>
+ * </ul>
+ * <p>
+ * Built on the JDK's {@link HttpServer} with one virtual thread per request,
+ * so thousands of open connections cost little and a slow client never
+ * holds up another. Requests place orders straight into the shared
+ * {@link StoreOrders} and are answered once the journal has the order on
+ * disk, which costs only a parked virtual thread. They never touch the
+ * JavaFX thread, which hears of new orders through the store's subscribers
+ * like any other.
+ * </p>
+ */
+public final class OrderIntakeServer implements Closeable {
+    /** Largest request body accepted, in bytes. */
+    public static final int MAX_BODY = 64 * 1024;
+    /** Longest a kiosk order waits for room in the kitchen, in seconds. */
+    public static final int KITCHEN_WAIT_SECONDS = 10;
+
+    private static final Histogram REQUEST_TIME = Metrics.histogram("intake.request");
+    /** Requests whose client went away before it could be answered. */
+    private static final Counter DISCONNECTED = Metrics.counter("intake.disconnected");
+    /** Requests answered {@code 500} because handling them failed. */
+    private static final Counter FAILED = Metrics.counter("intake.failed");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final StoreOrders store;
+    private final OrderJournal journal;
+    private final Kitchen kitchen;
+
+    private OrderIntakeServer(HttpServer server, StoreOrders store, OrderJournal journal, Kitchen kitchen) {
+        this.server = server;
+        this.store = store;
+        this.journal = journal;
+        this.kitchen = kitchen;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/orders", this::handle);
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param address where to listen; use the loopback address to accept
+     *                connections from this machine only, and port 0 for
+     *                any free port
+     * @param store   the store to place orders in
+     * @param journal the journal listening to {@code store}, waited on before
+     *                answering, or null
+     * @param kitchen kitchen to send orders to before placing them, or null
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static OrderIntakeServer start(InetSocketAddress address, StoreOrders store, OrderJournal journal,
+                                          Kitchen kitchen) throws IOException {
+        OrderIntakeServer intake = new OrderIntakeServer(HttpServer.create(address, 4096), store, journal, kitchen);
+        intake.server.start();
+        return intake;
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, lets requests in progress finish for up to a
+     * second, and stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (RuntimeException e) {
+                FAILED.increment();
+                e.printStackTrace(); // a bug or an exhausted resource, not the client's doing
+                if (exchange.getResponseCode() == -1) { // nothing sent yet
+                    send(exchange, 500, OrderJson.error("the order could not be handled: " + e.getMessage()));
+                }
+            }
+        } catch (IOException e) {
+            DISCONNECTED.increment(); // client went away; nothing to answer
+        } finally {
+            REQUEST_TIME.recordSince(start);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/orders") || path.equals("/orders/")) {
+            if (method.equals("POST")) place(exchange);
+            else send(exchange, 405, OrderJson.error("use POST to place an order"));
+        } else if (method.equals("GET")) {
+            find(exchange, path.substring("/orders/".length()));
+        } else {
+            send(exchange, 405, OrderJson.error("use GET to look up an order"));
+        }
+    }
+
+    private void place(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+        if (body == null) {
+            send(exchange, 413, OrderJson.error("order larger than " + MAX_BODY + " bytes"));
+            return;
+        }
+        Order order;
+        try {
+            order = OrderJson.read(body, new Order());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, OrderJson.error(e.getMessage()));
+            return;
+        }
+        if (kitchen != null && !toKitchen(order)) {
+            exchange.getResponseHeaders().set("Retry-After", "30");
+            send(exchange, 503, OrderJson.error("the kitchen is too busy; try again shortly"));
+            return;
+        }
+        store.addOrder(order);
+        if (journal != null) {
+            try {
+                journal.flushed().join(); // answer once the order is on disk
+            } catch (CompletionException e) {
+                send(exchange, 500, OrderJson.error("order #" + order.getOrderNumber()
+                        + " placed but not journaled: " + e.getCause()));
+                return;
+            }
+        }
+        send(exchange, 201, OrderJson.receipt(order));
+    }
+
+    /**
+     * Sends an order to the kitchen, parking this request's virtual thread
+     * for up to {@link #KITCHEN_WAIT_SECONDS} while a station is full.
+     *
+     * @param order the order
+     * @return true if the kitchen took it
+     */
+    private boolean toKitchen(Order order) {
+        try {
+            return kitchen.submit(order, KITCHEN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // server stopping
+            return false;
+        }
+    }
+
+    private void find(HttpExchange exchange, String number) throws IOException {
+        Order order = null;
+        try {
+            order = store.findByNumber(Integer.parseInt(number));
+        } catch (NumberFormatException e) {
+            // not a number: not found
+        }
+        if (order == null) send(exchange, 404, OrderJson.error("no order " + number));
+        else send(exchange, 200, OrderJson.receipt(order));
+    }
+
+    /**
+     * Reads the request body as UTF-8.
+     *
+     * @param exchange the exchange
+     * @return the body, or null if it is larger than {@link #MAX_BODY}
+     * @throws IOException if reading fails
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            return body.length > MAX_BODY ? null : new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
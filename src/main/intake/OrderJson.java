@@ -0,0 +1,354 @@
+package main.intake;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.MenuItem;
+import main.model.Money;
+import main.model.Order;
+import main.model.Sandwich;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converts between orders and the JSON accepted and returned by
+ * {@link OrderIntakeServer}.
+ * <p>
+ * An order is an object with an {@code items} array. Each item has a
+ * {@code type} and a {@code quantity} (default 1) plus the fields of its
+ * kind; enum names are matched ignoring case, with spaces allowed for
+ * underscores:
+ * </p>
+ * <pre>{@code
+ * {"items": [
+ *   {"type": "donut", "category": "yeast", "flavor": "Glazed", "quantity": 2},
+ *   {"type": "coffee", "size": "tall", "addIns": ["milk", "whipped cream"]},
+ *   {"type": "sandwich", "bread": "bagel", "protein": "chicken", "addOns": ["cheese"]}
+ * ]}
+ * }</pre>
+ * <p>
+ * Donut flavors must be ones the category offers. Prices are never taken
+ * from the request; the order prices its items itself.
+ * </p>
+ */
+public final class OrderJson {
+    /** Most items accepted in one order. */
+    public static final int MAX_ITEMS = 100;
+    /** Most units accepted for one item. */
+    public static final int MAX_QUANTITY = 99;
+
+    private OrderJson() {
+    }
+
+    /**
+     * Adds the items described by an order request to an order.
+     *
+     * @param json  the request body
+     * @param order the (empty, not yet placed) order to fill
+     * @return the order
+     * @throws IllegalArgumentException if the JSON is malformed or describes
+     *                                  an invalid or empty order
+     */
+    public static Order read(String json, Order order) {
+        for (MenuItem item : items(json)) order.addItem(item);
+        return order;
+    }
+
+    /**
+     * Reads the items described by an order request, without needing an
+     * order to put them in.
+     *
+     * @param json the request body
+     * @return the items, at least one
+     * @throws IllegalArgumentException if the JSON is malformed or describes
+     *                                  an invalid or empty order
+     */
+    static List<MenuItem> items(String json) {
+        Object root = new Parser(json).document();
+        if (!(root instanceof Map<?, ?> map)) throw new IllegalArgumentException("order must be a JSON object");
+        if (!(map.get("items") instanceof List<?> items) || items.isEmpty()) {
+            throw new IllegalArgumentException("order needs a non-empty \"items\" array");
+        }
+        if (items.size() > MAX_ITEMS) throw new IllegalArgumentException("at most " + MAX_ITEMS + " items per order");
+        List<MenuItem> result = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (!(items.get(i) instanceof Map<?, ?> item)) {
+                throw new IllegalArgumentException("item " + i + " must be an object");
+            }
+            try {
+                result.add(item(item));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("item " + i + ": " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds one item from its fields, checking every name against the
+     * menu's enums and the donut category's flavors.
+     *
+     * @param item the item's fields: {@code type}, {@code quantity} and
+     *             those of its kind, as in the class comment
+     * @return the item
+     * @throws IllegalArgumentException if a field is missing or invalid
+     */
+    static MenuItem item(Map<?, ?> item) {
+        int quantity = quantity(item.get("quantity"));
+        switch (string(item, "type").toLowerCase(Locale.ROOT)) {
+            case "donut": {
+                DonutCategory category = constant(DonutCategory.class, string(item, "category"));
+                String flavor = string(item, "flavor");
+                if (!category.flavors().contains(flavor)) {
+                    throw new IllegalArgumentException("no " + category + " flavor \"" + flavor + "\"");
+                }
+                return new Donut(category, flavor, quantity);
+            }
+            case "coffee": {
+                Coffee coffee = new Coffee(constant(CupSize.class, string(item, "size")), quantity);
+                for (String a : strings(item.get("addIns"))) coffee.addAddIn(constant(AddIns.class, a));
+                return coffee;
+            }
+            case "sandwich": {
+                Sandwich sandwich = new Sandwich(constant(Bread.class, string(item, "bread")),
+                        constant(Protein.class, string(item, "protein")), quantity);
+                for (String a : strings(item.get("addOns"))) sandwich.addAddOn(constant(AddOns.class, a));
+                return sandwich;
+            }
+            default:
+                throw new IllegalArgumentException("unknown type \"" + item.get("type") + "\"");
+        }
+    }
+
+    private static int quantity(Object value) {
+        if (value == null) return 1;
+        if (!(value instanceof Long n) || n < 1 || n > MAX_QUANTITY) {
+            throw new IllegalArgumentException("quantity must be a whole number from 1 to " + MAX_QUANTITY);
+        }
+        return n.intValue();
+    }
+
+    private static String string(Map<?, ?> item, String field) {
+        if (!(item.get(field) instanceof String s)) throw new IllegalArgumentException("\"" + field + "\" required");
+        return s;
+    }
+
+    private static List<String> strings(Object value) {
+        List<String> result = new ArrayList<>();
+        if (value == null) return result;
+        if (!(value instanceof List<?> list)) throw new IllegalArgumentException("expected an array of names");
+        for (Object o : list) {
+            if (!(o instanceof String s)) throw new IllegalArgumentException("expected an array of names");
+            result.add(s);
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> E constant(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown " + type.getSimpleName() + " \"" + name + "\"");
+        }
+    }
+
+    /**
+     * Describes a placed order: its number and totals.
+     *
+     * @param order the order
+     * @return JSON object text
+     */
+    public static String receipt(Order order) {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("{\"orderNumber\":").append(order.getOrderNumber());
+        sb.append(",\"items\":").append(order.getItems().size());
+        Money.append(sb.append(",\"subtotal\":\""), order.getSubtotalCents());
+        Money.append(sb.append("\",\"tax\":\""), order.getTaxCents());
+        Money.append(sb.append("\",\"total\":\""), order.getTotalCents());
+        return sb.append("\"}").toString();
+    }
+
+    /**
+     * Formats an error response.
+     *
+     * @param message what was wrong
+     * @return JSON object text
+     */
+    public static String error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append("\"}").toString();
+    }
+
+    /**
+     * Minimal JSON reader: objects become maps, arrays lists, whole numbers
+     * longs and other numbers doubles.
+     */
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object document() {
+            Object value = value(0);
+            skipSpace();
+            if (pos != s.length()) throw error("unexpected text after the value");
+            return value;
+        }
+
+        private Object value(int depth) {
+            if (depth > 32) throw error("nested too deeply");
+            skipSpace();
+            if (pos >= s.length()) throw error("unexpected end of input");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{':
+                    return object(depth);
+                case '[':
+                    return array(depth);
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return number();
+                    throw error("unexpected character '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> object(int depth) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipSpace();
+            if (peek('}')) return map;
+            do {
+                skipSpace();
+                if (pos >= s.length() || s.charAt(pos) != '"') throw error("expected a field name");
+                String key = string();
+                skipSpace();
+                expect(':');
+                map.put(key, value(depth + 1));
+                skipSpace();
+            } while (peek(','));
+            expect('}');
+            return map;
+        }
+
+        private List<Object> array(int depth) {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipSpace();
+            if (peek(']')) return list;
+            do {
+                list.add(value(depth + 1));
+                skipSpace();
+            } while (peek(','));
+            expect(']');
+            return list;
+        }
+
+        private String string() {
+            pos++; // opening quote
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= s.length()) throw error("unterminated string");
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) throw error("unterminated string");
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (pos + 4 > s.length()) throw error("bad \\u escape");
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("bad \\u escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("bad escape \\" + e);
+                }
+            }
+        }
+
+        private Object number() {
+            int start = pos;
+            if (s.charAt(pos) == '-') pos++;
+            boolean whole = true;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c >= '0' && c <= '9') {
+                    pos++;
+                } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                    whole = false;
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            String text = s.substring(start, pos);
+            try {
+                return whole ? (Object) Long.parseLong(text) : (Object) Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw error("bad number " + text);
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos)) throw error("unexpected text");
+            pos += word.length();
+            return value;
+        }
+
+        private boolean peek(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!peek(c)) throw error("expected '" + c + "'");
+        }
+
+        private void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("bad JSON at " + pos + ": " + message);
+        }
+    }
+}
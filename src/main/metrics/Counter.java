@@ -0,0 +1,61 @@
+package main.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count of events, such as orders placed. Incrementing is lock-free and
+ * does not allocate, and stays cheap when many threads increment at once.
+ * Published counters are created by {@link Metrics#counter(String)}; one
+ * kept by a single object, and not published, can be created directly.
+ */
+public final class Counter implements CounterMBean {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Creates a counter that is not in the {@link Metrics} registry.
+     *
+     * @param name dotted metric name
+     */
+    public Counter(String name) {
+        this.name = name;
+    }
+
+    /** Adds one to the count. */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param n the amount to add
+     */
+    public void add(long n) {
+        count.add(n);
+    }
+
+    /**
+     * Returns the metric's name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+    }
+
+    @Override
+    public String toString() {
+        return name + " count=" + getCount();
+    }
+}
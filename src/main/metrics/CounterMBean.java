@@ -0,0 +1,16 @@
+package main.metrics;
+
+/**
+ * JMX view of a {@link Counter}.
+ */
+public interface CounterMBean {
+    /**
+     * Returns the current count.
+     *
+     * @return events counted since start or the last reset
+     */
+    long getCount();
+
+    /** Sets the count back to zero. */
+    void reset();
+}
@@ -0,0 +1,45 @@
+package main.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value read when it is looked at, such as the length of a queue. Unlike
+ * a {@link Counter} nothing is recorded; the gauge asks its source each
+ * time. Gauges are created by {@link Metrics#gauge(String, LongSupplier)}.
+ */
+public final class Gauge implements GaugeMBean {
+    private final String name;
+    private volatile LongSupplier source = () -> 0;
+
+    Gauge(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Makes the gauge read from a new source.
+     *
+     * @param source supplies the current value; must be cheap and thread-safe
+     */
+    void setSource(LongSupplier source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the metric's name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getValue() {
+        return source.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return name + " value=" + getValue();
+    }
+}
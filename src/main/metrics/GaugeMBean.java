@@ -0,0 +1,13 @@
+package main.metrics;
+
+/**
+ * JMX view of a {@link Gauge}.
+ */
+public interface GaugeMBean {
+    /**
+     * Returns the current value.
+     *
+     * @return the value read now
+     */
+    long getValue();
+}
@@ -0,0 +1,164 @@
+package main.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations, such as how long placing an order takes.
+ * <p>
+ * Durations are counted in fixed log-linear buckets: each power of two of
+ * nanoseconds is split into {@value #SUB_BUCKETS} equal buckets, so any
+ * reported percentile is within 1/{@value #SUB_BUCKETS} of a recorded value.
+ * Recording is a bucket index computation and a few atomic adds; it takes
+ * no lock and does not allocate, so it can sit on the JavaFX thread and on
+ * register hot paths. Published histograms are created by
+ * {@link Metrics#histogram(String)}; one kept by a single object, and not
+ * published, can be created directly.
+ * </p>
+ */
+public final class Histogram implements HistogramMBean {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    /** Buckets for every positive long: exact below 8, then 8 per power of two. */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Creates a histogram that is not in the {@link Metrics} registry.
+     *
+     * @param name dotted metric name
+     */
+    public Histogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.getAndIncrement(bucket(nanos));
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     *
+     * @param startNanos the reading taken when the timed work began
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the metric's name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the duration below which the given fraction of the recorded
+     * durations fall.
+     *
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentileNanos(double quantile) {
+        if (quantile < 0 || quantile > 1) throw new IllegalArgumentException("quantile must be in [0, 1]: " + quantile);
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += snapshot[i] = counts.get(i);
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(middle(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts.get(i);
+        return count;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileNanos(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return percentileNanos(0.90) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /**
+     * Returns the bucket a duration is counted in.
+     *
+     * @param nanos a non-negative duration
+     * @return the bucket index
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exp = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the middle of the range of durations counted in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return a representative duration in nanoseconds
+     */
+    static long middle(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + ((1L << shift) >>> 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                name, getCount(), getMeanMillis(), getP50Millis(), getP90Millis(), getP99Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,51 @@
+package main.metrics;
+
+/**
+ * JMX view of a {@link Histogram}. Times are in milliseconds.
+ */
+public interface HistogramMBean {
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return durations recorded since start or the last reset
+     */
+    long getCount();
+
+    /**
+     * Returns the mean duration.
+     *
+     * @return mean in milliseconds, or 0 if nothing was recorded
+     */
+    double getMeanMillis();
+
+    /**
+     * Returns the median duration.
+     *
+     * @return 50th percentile in milliseconds
+     */
+    double getP50Millis();
+
+    /**
+     * Returns the 90th percentile duration.
+     *
+     * @return 90th percentile in milliseconds
+     */
+    double getP90Millis();
+
+    /**
+     * Returns the 99th percentile duration.
+     *
+     * @return 99th percentile in milliseconds
+     */
+    double getP99Millis();
+
+    /**
+     * Returns the longest duration.
+     *
+     * @return maximum in milliseconds
+     */
+    double getMaxMillis();
+
+    /** Discards all recorded durations. */
+    void reset();
+}
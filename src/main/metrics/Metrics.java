@@ -0,0 +1,181 @@
+package main.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Application-wide registry of named {@link Counter}s, {@link Histogram}s
+ * and {@link Gauge}s.
+ * <p>
+ * Code that wants to be measured looks its metrics up once, typically into
+ * a static final field, and then only records into them:
+ * </p>
+ * <pre>{@code
+ * private static final Histogram PLACE = Metrics.histogram("order.place");
+ * ...
+ * long start = System.nanoTime();
+ * ...
+ * PLACE.recordSince(start);
+ * }</pre>
+ * <p>
+ * Once {@link #registerMBeans()} has been called, every metric (including
+ * ones created later) is visible over JMX as
+ * {@code main.metrics:type=Counter|Histogram|Gauge,name=...}, e.g. in JConsole.
+ * {@link #startDump(Path, Duration)} also writes all metrics to a text file
+ * at a fixed interval. Neither is needed to record, so tests and tools that
+ * use the model pay nothing for them.
+ * </p>
+ */
+public final class Metrics {
+    /** JMX domain the metrics are registered under. */
+    public static final String DOMAIN = "main.metrics";
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static volatile MBeanServer server;
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use.
+     *
+     * @param name dotted metric name, e.g. {@code "orders.placed"}
+     * @return the counter
+     */
+    public static Counter counter(String name) {
+        Counter c = COUNTERS.get(name);
+        if (c != null) return c;
+        c = COUNTERS.computeIfAbsent(name, Counter::new);
+        register("Counter", name, c);
+        return c;
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it on first use.
+     *
+     * @param name dotted metric name, e.g. {@code "order.place"}
+     * @return the histogram
+     */
+    public static Histogram histogram(String name) {
+        Histogram h = HISTOGRAMS.get(name);
+        if (h != null) return h;
+        h = HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+        register("Histogram", name, h);
+        return h;
+    }
+
+    /**
+     * Returns the gauge with the given name, creating it on first use, and
+     * makes it read from {@code source}. A later call with the same name
+     * replaces the source.
+     *
+     * @param name   dotted metric name, e.g. {@code "kitchen.grill.depth"}
+     * @param source supplies the current value; must be cheap and thread-safe
+     * @return the gauge
+     */
+    public static Gauge gauge(String name, LongSupplier source) {
+        Gauge g = GAUGES.computeIfAbsent(name, Gauge::new);
+        g.setSource(source);
+        register("Gauge", name, g);
+        return g;
+    }
+
+    /**
+     * Registers every metric with the platform MBean server, and every
+     * metric created from now on as it is created. Calling this again has
+     * no effect.
+     */
+    public static synchronized void registerMBeans() {
+        if (server != null) return;
+        server = ManagementFactory.getPlatformMBeanServer();
+        COUNTERS.forEach((name, c) -> register("Counter", name, c));
+        HISTOGRAMS.forEach((name, h) -> register("Histogram", name, h));
+        GAUGES.forEach((name, g) -> register("Gauge", name, g));
+    }
+
+    private static synchronized void register(String type, String name, Object metric) {
+        if (server == null) return;
+        try {
+            ObjectName id = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(id)) server.registerMBean(metric, id);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes all metrics to a file now and then every {@code interval} on a
+     * daemon thread. Each dump replaces the file whole, so a reader never
+     * sees a half-written one.
+     *
+     * @param file     the file to write
+     * @param interval time between dumps
+     * @return the scheduler, which can be shut down to stop dumping
+     */
+    public static ScheduledExecutorService startDump(Path file, Duration interval) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            try {
+                dump(file);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return dumper;
+    }
+
+    /**
+     * Writes all metrics to a file, one per line, sorted by name.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void dump(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(snapshot());
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns all metrics as text, one per line, sorted by name.
+     *
+     * @return the current values
+     */
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder("# metrics at ").append(Instant.now()).append('\n');
+        for (Counter c : new TreeMap<>(COUNTERS).values()) sb.append(c).append('\n');
+        for (Histogram h : new TreeMap<>(HISTOGRAMS).values()) sb.append(h).append('\n');
+        for (Gauge g : new TreeMap<>(GAUGES).values()) sb.append(g).append('\n');
+        return sb.toString();
+    }
+}
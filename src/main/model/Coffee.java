@@ -2,14 +2,39 @@ package main.model;
 
 import main.enums.CupSize;
 import main.enums.AddIns;
-import java.util.ArrayList;
+import java.util.Set;
 /**
  * Represents a brewed coffee order with a specific cup size, quantity,
  * and optional add-ins such as milk or syrup.
  */
 public class Coffee extends MenuItem {
+    private static final long BASE_CENTS = 239;
+    private static final long SIZE_STEP_CENTS = 60;
+    /** Price of one add-in on one cup, in cents. */
+    static final long ADD_IN_CENTS = 25;
+    /**
+     * Unit price in cents for every cup size and set of add-ins, indexed by
+     * {@code size.ordinal() << ADD_IN_COUNT | addInMask}. Built once when the
+     * class loads from the prices above.
+     */
+    private static final long[] UNIT_CENTS;
+    private static final AddIns[] ADD_INS = AddIns.values();
+    private static final int ADD_IN_COUNT = ADD_INS.length;
+
+    static {
+        int sets = 1 << ADD_IN_COUNT;
+        UNIT_CENTS = new long[CupSize.values().length * sets];
+        for (CupSize s : CupSize.values()) {
+            for (int mask = 0; mask < sets; mask++) {
+                UNIT_CENTS[s.ordinal() << ADD_IN_COUNT | mask] =
+                        BASE_CENTS + SIZE_STEP_CENTS * s.ordinal() + ADD_IN_CENTS * Integer.bitCount(mask);
+            }
+        }
+    }
+
     private CupSize size;
-    private ArrayList<AddIns> addIns;
+    /** Bit {@code a.ordinal()} is set for each add-in {@code a} on this coffee. */
+    private int addInMask;
     /**
      * Creates a coffee object with the given size and quantity.
      *
@@ -21,7 +46,6 @@ public class Coffee extends MenuItem {
         super(quantity);
         if (size == null) throw new IllegalArgumentException("size required");
         this.size = size;
-        this.addIns = new ArrayList<>();
     }
     /**
      * Returns the cup size of this coffee.
@@ -34,41 +58,72 @@ public class Coffee extends MenuItem {
      *
      * @param size new cup size
      */
-    public void setSize(CupSize size) { this.size = size; }
+    public void setSize(CupSize size) {
+        if (size == null) throw new IllegalArgumentException("size required");
+        long before = priceCents();
+        this.size = size;
+        repriced(before);
+    }
     /**
-     * Returns the list of add-ins for this coffee.
+     * Returns a read-only view of the add-ins for this coffee.
      *
-     * @return list of add-ins
+     * @return set of add-ins, in declaration order
      */
-    public ArrayList<AddIns> getAddIns() { return addIns; }
+    public Set<AddIns> getAddIns() { return new EnumMaskSet<>(ADD_INS, () -> addInMask); }
+    /**
+     * Returns the add-ins as a bitmask with bit {@code a.ordinal()} set for
+     * each add-in {@code a}.
+     *
+     * @return the add-in bitmask
+     */
+    int addInMask() { return addInMask; }
     /**
      * Adds an add-in to this coffee.
      *
      * @param a the add-in to add
      * @return true if added; false if already present
      */
-    public boolean addAddIn(AddIns a) { return a != null && !addIns.contains(a) && addIns.add(a); }
+    public boolean addAddIn(AddIns a) {
+        if (a == null || (addInMask & 1 << a.ordinal()) != 0) return false;
+        long before = priceCents();
+        addInMask |= 1 << a.ordinal();
+        repriced(before);
+        return true;
+    }
     /**
      * Removes an add-in from this coffee.
      *
      * @param a the add-in to remove
      * @return true if removed
      */
-    public boolean removeAddIn(AddIns a) { return addIns.remove(a); }
+    public boolean removeAddIn(AddIns a) {
+        if (a == null || (addInMask & 1 << a.ordinal()) == 0) return false;
+        long before = priceCents();
+        addInMask &= ~(1 << a.ordinal());
+        repriced(before);
+        return true;
+    }
     /**
-     * Computes the total price of this coffee order.
+     * Computes the total price of this coffee order in cents.
      * Base price: Short = 2.39; each size step +0.60.
      * Each add-in is +0.25.
+     * The unit price is read from a table precomputed for every size and
+     * combination of add-ins.
      *
-     * @return total price
+     * @return total price in cents
      */
     @Override
-    public double price() {
-        // Base: Short black = 2.39; each size step +0.60; each add-in +0.25
-        double base = 2.39;
-        int steps = size.ordinal(); // assume SHORT=0, TALL=1, GRANDE=2, VENTI=3
-        double cupPrice = base + 0.60 * steps;
-        double addInsCost = 0.25 * addIns.size();
-        return (cupPrice + addInsCost) * quantity;
+    public long priceCents() {
+        return unitCents(size.ordinal(), addInMask) * quantity;
+    }
+    /**
+     * Returns the price of one cup in cents.
+     *
+     * @param size      cup size ordinal
+     * @param addInMask add-in bitmask
+     * @return unit price in cents
+     */
+    static long unitCents(int size, int addInMask) {
+        return UNIT_CENTS[size << ADD_IN_COUNT | addInMask];
     }
 }
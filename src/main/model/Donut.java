@@ -23,21 +23,28 @@ public class Donut extends MenuItem {
         this.flavor = flavor;
     }
     /**
-     * Computes the total price of this donut order based on the category
-     * and quantity. Each category has a different unit price.
+     * Computes the total price of this donut order in cents based on the
+     * category and quantity. Each category has a different unit price.
      *
-     * @return the total price for this donut order
+     * @return the total price for this donut order in cents
      */
     @Override
-    public double price() {
-        double unit =
-                switch (type) {
-                    case YEAST -> 1.99;
-                    case CAKE -> 2.19;
-                    case HOLE -> 0.39;
-                    case SEASONAL -> 2.49;
-                };
-        return unit * quantity;
+    public long priceCents() {
+        return unitCents(type) * quantity;
+    }
+    /**
+     * Returns the price of one donut of a category in cents.
+     *
+     * @param type the donut category
+     * @return unit price in cents
+     */
+    static long unitCents(DonutCategory type) {
+        return switch (type) {
+            case YEAST -> 199;
+            case CAKE -> 219;
+            case HOLE -> 39;
+            case SEASONAL -> 249;
+        };
     }
     /**
      * Returns the flavor of this donut.
@@ -61,7 +68,9 @@ public class Donut extends MenuItem {
      */
     @Override
     public String toString() {
-        return String.format("%s Donut - %s x%d ($%.2f)",
-                type.name(), flavor, quantity, price());
+        StringBuilder sb = new StringBuilder(48);
+        sb.append(type.name()).append(" Donut - ").append(flavor)
+                .append(" x").append(quantity).append(" ($");
+        return Money.append(sb, priceCents()).append(')').toString();
     }
 }
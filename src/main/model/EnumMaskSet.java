@@ -0,0 +1,59 @@
+package main.model;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntSupplier;
+/**
+ * A read-only {@link java.util.Set} view over a bitmask of enum constants,
+ * where bit {@code e.ordinal()} is set for each member {@code e}. The view
+ * reads the mask on every call, so it always reflects the item it came from.
+ *
+ * @param <E> the enum type
+ */
+final class EnumMaskSet<E extends Enum<E>> extends AbstractSet<E> {
+    private final E[] universe;
+    private final IntSupplier mask;
+    /**
+     * Creates a view over a bitmask.
+     *
+     * @param universe all constants of the enum, in ordinal order
+     * @param mask     supplies the current bitmask
+     */
+    EnumMaskSet(E[] universe, IntSupplier mask) {
+        this.universe = universe;
+        this.mask = mask;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Enum<?> e)) return false;
+        int ordinal = e.ordinal();
+        return ordinal < universe.length && universe[ordinal] == e && (mask.getAsInt() & 1 << ordinal) != 0;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(mask.getAsInt());
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+            private int remaining = mask.getAsInt();
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0;
+            }
+
+            @Override
+            public E next() {
+                if (remaining == 0) throw new NoSuchElementException();
+                int ordinal = Integer.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                return universe[ordinal];
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package main.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Carries model changes to the views in batches.
+ * <p>
+ * Each subscriber has a {@link Sink} that the model posts events into, from
+ * any thread. The bus collects everything posted until it next runs on its
+ * executor (for the app, {@code Platform::runLater}), then hands each
+ * subscriber all of its pending events as one list. A burst of changes,
+ * such as many items added at once or a bulk import, therefore reaches a
+ * view as a single update on the JavaFX thread rather than one per change.
+ * </p>
+ * <p>
+ * Subscribers are held weakly. The handler is given the subscriber as an
+ * argument (so it should be an unbound method reference such as
+ * {@code MyController::apply}, not a lambda that captures the subscriber);
+ * once the subscriber is no longer reachable, its sink stops accepting
+ * events and it is never called again. Model-side adapters drop a sink when
+ * {@link Sink#post(Object)} returns false.
+ * </p>
+ */
+public final class EventBus {
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Sink<?>> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Creates a bus that delivers on the given executor.
+     *
+     * @param executor runs deliveries, e.g. {@code Platform::runLater}
+     */
+    public EventBus(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes to a stream of events.
+     *
+     * @param subscriber the subscriber, held weakly
+     * @param handler    called on the bus's executor with the subscriber and
+     *                   the events posted since its last call, oldest first
+     * @param <S>        subscriber type
+     * @param <E>        event type
+     * @return the sink to post the subscriber's events into
+     */
+    public <S, E> Sink<E> subscribe(S subscriber, BiConsumer<? super S, ? super List<E>> handler) {
+        return new Sink<>(this, subscriber, handler);
+    }
+
+    private void ready(Sink<?> sink) {
+        ready.add(sink);
+        if (scheduled.compareAndSet(false, true)) executor.execute(this::deliver);
+    }
+
+    private void deliver() {
+        scheduled.set(false);
+        for (Sink<?> sink; (sink = ready.poll()) != null; ) sink.deliver();
+    }
+
+    /**
+     * One subscriber's queue of events.
+     *
+     * @param <E> event type
+     */
+    public static final class Sink<E> {
+        private final EventBus bus;
+        private final WeakReference<Object> subscriber;
+        private final BiConsumer<Object, List<E>> handler;
+        private final ConcurrentLinkedQueue<E> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile boolean closed;
+
+        @SuppressWarnings("unchecked")
+        private <S> Sink(EventBus bus, S subscriber, BiConsumer<? super S, ? super List<E>> handler) {
+            this.bus = bus;
+            this.subscriber = new WeakReference<>(subscriber);
+            this.handler = (BiConsumer<Object, List<E>>) (BiConsumer<?, ?>) handler;
+        }
+
+        /**
+         * Queues an event for the subscriber.
+         *
+         * @param event the event
+         * @return false if the sink is closed or its subscriber has been
+         *         garbage collected, in which case the event is dropped and
+         *         the caller should stop posting
+         */
+        public boolean post(E event) {
+            if (!isOpen()) return false;
+            pending.add(event);
+            if (queued.compareAndSet(false, true)) bus.ready(this);
+            return true;
+        }
+
+        /**
+         * Returns whether events posted to this sink can still be delivered.
+         *
+         * @return true until the sink is closed or its subscriber collected
+         */
+        public boolean isOpen() {
+            if (closed) return false;
+            if (subscriber.get() == null) close();
+            return !closed;
+        }
+
+        /** Stops delivery; pending and later events are dropped. */
+        public void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        private void deliver() {
+            queued.set(false);
+            Object s = subscriber.get();
+            if (s == null || closed) {
+                close();
+                return;
+            }
+            List<E> batch = new ArrayList<>();
+            for (E e; (e = pending.poll()) != null; ) batch.add(e);
+            if (!batch.isEmpty()) handler.accept(s, batch);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package main.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+/**
+ * Application-wide table of donut flavor names, so that packed items can
+ * refer to a flavor by a small id and every placed donut of a flavor shares
+ * one String.
+ */
+final class FlavorCatalog {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static int count;
+
+    private FlavorCatalog() {
+    }
+    /**
+     * Returns the id of a flavor, adding it to the catalog if it is new.
+     *
+     * @param flavor the flavor name
+     * @return the flavor id
+     * @throws IllegalStateException if the catalog is full
+     */
+    static int idOf(String flavor) {
+        Integer id = IDS.get(flavor);
+        return id != null ? id : add(flavor);
+    }
+    /**
+     * Returns the flavor name for an id returned by {@link #idOf(String)}.
+     *
+     * @param id the flavor id
+     * @return the flavor name
+     */
+    static String nameOf(int id) {
+        return names[id];
+    }
+
+    private static synchronized int add(String flavor) {
+        Integer existing = IDS.get(flavor);
+        if (existing != null) return existing;
+        if (count == PackedItems.NO_FLAVOR) throw new IllegalStateException("too many flavors");
+        String[] table = names;
+        if (count == table.length) table = Arrays.copyOf(table, table.length * 2);
+        table[count] = flavor;
+        names = table; // publish the name before its id
+        IDS.put(flavor, count);
+        return count++;
+    }
+}
@@ -0,0 +1,86 @@
+package main.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+/**
+ * Compact storage for the items of placed orders. Each item is packed into
+ * one {@code long} (see {@link PackedItems}) and appended to large shared
+ * {@code long[]} chunks, so a placed order's items cost eight bytes each
+ * instead of a {@link MenuItem} object graph.
+ * <p>
+ * Not thread-safe: {@link StoreOrders} only calls {@link #freeze(List)} while
+ * holding its write lock. The returned views are immutable and safe to read
+ * from any thread once the order has been published.
+ * </p>
+ */
+final class ItemColumns {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private long[] chunk = new long[CHUNK_SIZE];
+    private int used;
+    /**
+     * Packs the given items into the columns.
+     *
+     * @param items the items of an order being placed
+     * @return a read-only view of the packed items
+     */
+    Frozen freeze(List<MenuItem> items) {
+        int n = items.size();
+        long[] target;
+        int offset;
+        if (n > CHUNK_SIZE / 4) {
+            // Very large orders get their own array rather than wasting a chunk
+            target = new long[n];
+            offset = 0;
+        } else {
+            if (used + n > chunk.length) {
+                chunk = new long[CHUNK_SIZE];
+                used = 0;
+            }
+            target = chunk;
+            offset = used;
+            used += n;
+        }
+        for (int i = 0; i < n; i++) {
+            target[offset + i] = PackedItems.pack(items.get(i), FlavorCatalog::idOf);
+        }
+        return new Frozen(target, offset, n);
+    }
+
+    /**
+     * A read-only list of packed items. Each {@link #get(int)} rebuilds a
+     * detached {@link MenuItem}; changing it does not change the order.
+     */
+    static final class Frozen extends AbstractList<MenuItem> implements RandomAccess {
+        private final long[] column;
+        private final int offset;
+        private final int size;
+
+        private Frozen(long[] column, int offset, int size) {
+            this.column = column;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public MenuItem get(int index) {
+            return PackedItems.unpack(packed(index), FlavorCatalog::nameOf);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+        /**
+         * Returns an item in packed form, without building a MenuItem.
+         *
+         * @param index item index
+         * @return the packed item
+         */
+        long packed(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+            return column[offset + index];
+        }
+    }
+}
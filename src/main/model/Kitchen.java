@@ -0,0 +1,674 @@
+package main.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import main.metrics.Counter;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+
+/**
+ * The kitchen behind the registers. Each order sent to it is split into one
+ * {@link Ticket} per {@link Station} with work on it: donuts from the case,
+ * coffee from the bar, sandwiches from the grill. Every station works
+ * through its own queue.
+ * <p>
+ * Tickets are scheduled by estimated prep time so that an order's tickets
+ * finish together. The ticket that will take longest to finish, allowing
+ * for the backlog already at its station, is planned to start at once; the
+ * others are held back just long enough to finish with it, so a coffee is
+ * not left going cold while its sandwich is still on the grill. Each
+ * station's queue is a {@link DelayQueue}, so a ticket is handed to a cook
+ * once its planned start has come, earliest first.
+ * </p>
+ * <p>
+ * A station holds a limited number of tickets at a time, waiting or being
+ * prepared. When a station is full, {@link #trySubmit(Order)} turns the
+ * whole order away and {@link #submit(Order, long, TimeUnit)} waits for
+ * room, so kiosks feel it when the kitchen falls behind instead of the
+ * queues growing without bound. An order already paid for at the register
+ * is queued by {@link #enqueue(Order)} even past a station's capacity,
+ * which is then reported so the cashier can warn the customer.
+ * </p>
+ * <p>
+ * Cooks take the next ticket for their station with {@link #take(Station)}
+ * or {@link #poll(Station)} and hand it back with {@link #done(Ticket)}.
+ * Each kitchen measures its stations' depth, the wait from a ticket's
+ * planned start until a cook picks it up, the time to finish whole orders
+ * and how far apart an order's tickets finish. A kitchen given a metrics
+ * prefix publishes these through {@link Metrics}, e.g. as
+ * {@code kitchen.grill.wait}; others keep them to themselves, so simulated
+ * and test kitchens do not mix their numbers with the real one.
+ * </p>
+ */
+public class Kitchen {
+    /** Tickets a station holds at once unless told otherwise. */
+    public static final int DEFAULT_CAPACITY = 20;
+
+    private final Map<Station, Line> lines = new EnumMap<>(Station.class);
+    private final int capacity;
+    private final double speedup;
+    /** Prefix the metrics are published under, or null if they are not. */
+    private final String metrics;
+    private final Histogram orderTime;
+    private final Histogram spread;
+    private final Counter orders;
+    private final AtomicLong sequence = new AtomicLong();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Creates a kitchen running in real time, with {@link #DEFAULT_CAPACITY}
+     * and each station's usual number of cooks, that does not publish its
+     * metrics.
+     */
+    public Kitchen() {
+        this(DEFAULT_CAPACITY, Map.of(), 1, null);
+    }
+    /**
+     * Creates a kitchen that does not publish its metrics.
+     *
+     * @param capacity tickets each station holds at once, waiting or being
+     *                 prepared
+     * @param cooks    cooks working each station; stations left out get
+     *                 their {@link Station#getDefaultCooks() usual number}
+     * @param speedup  how many times faster than real time prep runs: 1 for
+     *                 a real kitchen, more to compress a simulated shift
+     * @throws IllegalArgumentException if a number is not positive
+     */
+    public Kitchen(int capacity, Map<Station, Integer> cooks, double speedup) {
+        this(capacity, cooks, speedup, null);
+    }
+    /**
+     * Creates a kitchen.
+     *
+     * @param capacity tickets each station holds at once, waiting or being
+     *                 prepared
+     * @param cooks    cooks working each station; stations left out get
+     *                 their {@link Station#getDefaultCooks() usual number}
+     * @param speedup  how many times faster than real time prep runs: 1 for
+     *                 a real kitchen, more to compress a simulated shift
+     * @param metrics  prefix to publish this kitchen's metrics under in
+     *                 {@link Metrics}, e.g. {@code "kitchen"}, or null to
+     *                 keep them to this kitchen
+     * @throws IllegalArgumentException if a number is not positive
+     */
+    public Kitchen(int capacity, Map<Station, Integer> cooks, double speedup, String metrics) {
+        if (capacity < 1 || !(speedup > 0)) {
+            throw new IllegalArgumentException("capacity and speedup must be positive");
+        }
+        this.capacity = capacity;
+        this.speedup = speedup;
+        this.metrics = metrics;
+        this.orderTime = histogram("order");
+        this.spread = histogram("spread");
+        this.orders = counter("orders");
+        for (Station s : Station.values()) {
+            int n = cooks.getOrDefault(s, s.defaultCooks);
+            if (n < 1) throw new IllegalArgumentException("every station needs a cook: " + s);
+            lines.put(s, new Line(s, capacity, n));
+        }
+    }
+
+    /**
+     * Sends an order to the kitchen if every station it needs has room,
+     * without waiting. Either all of the order's tickets are queued or none.
+     *
+     * @param order the order
+     * @return true if the order was queued, false if a station was full
+     */
+    public boolean trySubmit(Order order) {
+        Map<Station, List<MenuItem>> work = split(order);
+        List<Line> reserved = new ArrayList<>(work.size());
+        for (Station s : work.keySet()) {
+            Line line = lines.get(s);
+            if (!line.room.tryAcquire()) {
+                line.rejected.increment();
+                for (Line r : reserved) r.room.release();
+                return false;
+            }
+            reserved.add(line);
+        }
+        schedule(order, work);
+        return true;
+    }
+
+    /**
+     * Sends an order to the kitchen, waiting up to the given time for every
+     * station it needs to have room. Either all of the order's tickets are
+     * queued or none.
+     *
+     * @param order   the order
+     * @param timeout how long to wait at most
+     * @param unit    unit of {@code timeout}
+     * @return true if the order was queued, false if a station stayed full
+     * @throws InterruptedException if interrupted while waiting; nothing is
+     *                              queued
+     */
+    public boolean submit(Order order, long timeout, TimeUnit unit) throws InterruptedException {
+        Map<Station, List<MenuItem>> work = split(order);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Line> reserved = new ArrayList<>(work.size());
+        boolean queued = false;
+        try {
+            // Stations are always reserved in the same order, so two waiting orders cannot deadlock
+            for (Station s : work.keySet()) {
+                Line line = lines.get(s);
+                if (!line.room.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    line.rejected.increment();
+                    return false;
+                }
+                reserved.add(line);
+            }
+            schedule(order, work);
+            queued = true;
+            return true;
+        } finally {
+            if (!queued) for (Line r : reserved) r.room.release();
+        }
+    }
+
+    /**
+     * Sends an order to the kitchen whether or not its stations have room,
+     * for orders that have already been taken. Stations that are full hold
+     * more tickets than their capacity until cooks catch up, and
+     * {@link #trySubmit} and {@link #submit} wait for them meanwhile.
+     *
+     * @param order the order
+     * @return the order's stations now holding more than their capacity;
+     *         empty if the kitchen had room
+     */
+    public Set<Station> enqueue(Order order) {
+        Map<Station, List<MenuItem>> work = split(order);
+        Set<Station> over = EnumSet.noneOf(Station.class);
+        for (Station s : work.keySet()) {
+            Line line = lines.get(s);
+            if (!line.room.tryAcquire()) {
+                line.room.overfill();
+                over.add(s);
+            }
+        }
+        schedule(order, work);
+        return over;
+    }
+
+    private static Map<Station, List<MenuItem>> split(Order order) {
+        Map<Station, List<MenuItem>> work = new EnumMap<>(Station.class);
+        for (MenuItem item : order.getItems()) {
+            work.computeIfAbsent(Station.of(item), s -> new ArrayList<>(4)).add(item);
+        }
+        return work;
+    }
+
+    /**
+     * Plans and queues the tickets of an order whose stations have been
+     * reserved. Every ticket is planned to finish when the slowest one can:
+     * its station's estimated backlog plus its own prep time.
+     *
+     * @param order the order
+     * @param work  the order's items by station
+     */
+    private void schedule(Order order, Map<Station, List<MenuItem>> work) {
+        long now = System.nanoTime();
+        Map<Station, Long> prep = new EnumMap<>(Station.class);
+        long finishAt = now;
+        for (Map.Entry<Station, List<MenuItem>> e : work.entrySet()) {
+            Line line = lines.get(e.getKey());
+            long millis = 0;
+            for (MenuItem item : e.getValue()) millis += e.getKey().prepMillis(item);
+            long nanos = (long) (millis * 1_000_000 / speedup);
+            prep.put(e.getKey(), nanos);
+            finishAt = Math.max(finishAt, now + line.backlogNanos.get() / line.cooks + nanos);
+        }
+        Progress progress = new Progress(now, work.size());
+        for (Map.Entry<Station, List<MenuItem>> e : work.entrySet()) {
+            Line line = lines.get(e.getKey());
+            long nanos = prep.get(e.getKey());
+            Ticket t = new Ticket(order.getOrderNumber(), e.getKey(), List.copyOf(e.getValue()), nanos,
+                    finishAt - nanos, sequence.getAndIncrement(), progress);
+            line.backlogNanos.addAndGet(nanos);
+            line.queue.add(t);
+            changed(t);
+        }
+    }
+
+    /**
+     * Hands a cook the next ticket at a station, waiting until one is due
+     * to start.
+     *
+     * @param station the cook's station
+     * @return the ticket, now being prepared
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Ticket take(Station station) throws InterruptedException {
+        Line line = lines.get(station);
+        return line.started(line.queue.take());
+    }
+
+    /**
+     * Hands a cook the next ticket at a station if one is due to start.
+     *
+     * @param station the cook's station
+     * @return the ticket, now being prepared, or null if none is due yet
+     */
+    public Ticket poll(Station station) {
+        Line line = lines.get(station);
+        Ticket t = line.queue.poll();
+        return t == null ? null : line.started(t);
+    }
+
+    /**
+     * Marks a ticket prepared, making room at its station.
+     *
+     * @param ticket a ticket handed out by {@link #take} or {@link #poll}
+     * @throws IllegalStateException if the ticket is not being prepared
+     */
+    public void done(Ticket ticket) {
+        long now = System.nanoTime();
+        Line line = lines.get(ticket.station);
+        if (!line.preparing.remove(ticket)) throw new IllegalStateException("ticket is not being prepared");
+        ticket.doneAt = now;
+        line.backlogNanos.addAndGet(-ticket.prepNanos);
+        line.room.release();
+        Progress p = ticket.progress;
+        p.firstDone.compareAndSet(0, now);
+        p.lastDone.accumulateAndGet(now, Math::max);
+        if (p.remaining.decrementAndGet() == 0) finished(p);
+        changed(ticket);
+    }
+
+    /**
+     * Records an order whose tickets are all done or cancelled, unless none
+     * of them was done.
+     *
+     * @param p the order's progress
+     */
+    private void finished(Progress p) {
+        long first = p.firstDone.get();
+        if (first == 0) return;
+        long last = p.lastDone.get();
+        orderTime.record(last - p.submittedAt);
+        spread.record(last - first);
+        orders.increment();
+    }
+
+    /**
+     * Takes back the tickets of a cancelled order that no cook has started,
+     * making room at their stations. Tickets already being prepared are
+     * left for the cooks to finish; the order counts as finished, in the
+     * order metrics, once they are.
+     *
+     * @param orderNumber the cancelled order's number
+     * @return the number of tickets taken back
+     */
+    public int cancel(int orderNumber) {
+        int removed = 0;
+        for (Line line : lines.values()) {
+            for (Ticket t : line.queue) {
+                if (t.orderNumber != orderNumber || !line.queue.remove(t)) continue; // a cook may have taken it
+                t.cancelled = true;
+                line.backlogNanos.addAndGet(-t.prepNanos);
+                line.room.release();
+                removed++;
+                if (t.progress.remaining.decrementAndGet() == 0) finished(t.progress);
+                changed(t);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the tickets at a station, waiting or being prepared, in the
+     * order they are planned to start.
+     *
+     * @param station the station
+     * @return a snapshot of the station's tickets
+     */
+    public List<Ticket> tickets(Station station) {
+        Line line = lines.get(station);
+        List<Ticket> tickets = new ArrayList<>(line.preparing);
+        tickets.addAll(line.queue);
+        tickets.sort(Comparator.comparingLong((Ticket t) -> t.startAt).thenComparingLong(t -> t.sequence));
+        return tickets;
+    }
+
+    /**
+     * Returns how many tickets a station holds, waiting or being prepared.
+     *
+     * @param station the station
+     * @return the station's depth
+     */
+    public int depth(Station station) {
+        return lines.get(station).depth();
+    }
+
+    /**
+     * Returns how many tickets each station holds at once.
+     *
+     * @return the capacity of a station
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the wait times recorded at a station: from each ticket's
+     * planned start until a cook picked it up.
+     *
+     * @param station the station
+     * @return the station's wait histogram
+     */
+    public Histogram waitTimes(Station station) {
+        return lines.get(station).waitTime;
+    }
+
+    /**
+     * Returns the times from sending orders to the kitchen until their last
+     * ticket was done.
+     *
+     * @return the order time histogram
+     */
+    public Histogram orderTimes() {
+        return orderTime;
+    }
+
+    /**
+     * Returns, for each finished order, the time between its first and last
+     * ticket being done; zero when they finish together.
+     *
+     * @return the finish spread histogram
+     */
+    public Histogram finishSpread() {
+        return spread;
+    }
+
+    /**
+     * Registers a listener for tickets queued, started, done and cancelled.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Subscribes to tickets queued, started, done and cancelled through an
+     * event bus, which delivers them in batches and holds the subscriber
+     * weakly. The subscription ends when the returned sink is closed or the
+     * subscriber is garbage collected.
+     *
+     * @param bus        the bus to deliver through
+     * @param subscriber the subscriber, held weakly
+     * @param handler    receives the subscriber and each batch of changed
+     *                   tickets
+     * @param <S>        subscriber type
+     * @return the subscription's sink; close it to unsubscribe
+     */
+    public <S> EventBus.Sink<Ticket> subscribe(EventBus bus, S subscriber,
+                                               BiConsumer<? super S, ? super List<Ticket>> handler) {
+        EventBus.Sink<Ticket> sink = bus.subscribe(subscriber, handler);
+        addListener(new Listener() {
+            @Override
+            public void ticketChanged(Ticket ticket) {
+                if (!sink.post(ticket)) removeListener(this);
+            }
+        });
+        return sink;
+    }
+
+    private void changed(Ticket ticket) {
+        for (Listener l : listeners) l.ticketChanged(ticket);
+    }
+
+    private Histogram histogram(String name) {
+        return metrics == null ? new Histogram("kitchen." + name) : Metrics.histogram(metrics + "." + name);
+    }
+
+    private Counter counter(String name) {
+        return metrics == null ? new Counter("kitchen." + name) : Metrics.counter(metrics + "." + name);
+    }
+
+    /** The stations of the kitchen and the items each one prepares. */
+    public enum Station {
+        /** Donuts, picked from the display case and boxed. */
+        CASE(1),
+        /** Coffee, brewed at the bar. */
+        BAR(2),
+        /** Sandwiches, made on the grill. */
+        GRILL(2);
+
+        private final int defaultCooks;
+
+        Station(int defaultCooks) {
+            this.defaultCooks = defaultCooks;
+        }
+
+        /**
+         * Returns how many cooks usually work this station.
+         *
+         * @return the usual number of cooks
+         */
+        public int getDefaultCooks() {
+            return defaultCooks;
+        }
+
+        /**
+         * Returns the station that prepares a menu item.
+         *
+         * @param item the item
+         * @return its station
+         * @throws IllegalArgumentException if no station makes such items
+         */
+        public static Station of(MenuItem item) {
+            if (item instanceof Donut) return CASE;
+            if (item instanceof Coffee) return BAR;
+            if (item instanceof Sandwich) return GRILL;
+            throw new IllegalArgumentException("no station makes " + item.getClass().getSimpleName());
+        }
+
+        /**
+         * Estimates how long this station takes to prepare an item. Boxing
+         * donuts is quick; the bar and the grill take longer for each extra,
+         * but make several cups or sandwiches at once in less time than
+         * one after another.
+         *
+         * @param item an item made at this station
+         * @return the estimate in milliseconds
+         */
+        public long prepMillis(MenuItem item) {
+            int n = item.getQuantity();
+            switch (this) {
+                case CASE:
+                    return 10_000 + 4_000L * n;
+                case BAR: {
+                    Coffee c = (Coffee) item;
+                    long cup = 30_000 + 5_000L * c.getSize().stepsFromShort + 8_000L * c.getAddIns().size();
+                    return cup + (n - 1) * cup / 2;
+                }
+                default: {
+                    Sandwich s = (Sandwich) item;
+                    return 150_000 + 10_000L * s.getAddOns().size() * n + 45_000L * (n - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * One station's share of an order: its items, when it is planned to
+     * start, and whether a cook has started or finished it. Tickets are
+     * queued by planned start.
+     */
+    public static final class Ticket implements Delayed {
+        private final int orderNumber;
+        private final Station station;
+        private final List<MenuItem> items;
+        private final long prepNanos;
+        private final long startAt;
+        private final long sequence;
+        private final Progress progress;
+        private volatile long startedAt;
+        private volatile long doneAt;
+        private volatile boolean cancelled;
+
+        Ticket(int orderNumber, Station station, List<MenuItem> items, long prepNanos, long startAt,
+               long sequence, Progress progress) {
+            this.orderNumber = orderNumber;
+            this.station = station;
+            this.items = items;
+            this.prepNanos = prepNanos;
+            this.startAt = startAt;
+            this.sequence = sequence;
+            this.progress = progress;
+        }
+
+        /** @return the number of the order this ticket is for */
+        public int getOrderNumber() { return orderNumber; }
+
+        /** @return the station that prepares this ticket */
+        public Station getStation() { return station; }
+
+        /** @return the items to prepare */
+        public List<MenuItem> getItems() { return items; }
+
+        /**
+         * Returns the estimated prep time, already scaled by the kitchen's
+         * speedup.
+         *
+         * @return the estimate in nanoseconds
+         */
+        public long getPrepNanos() { return prepNanos; }
+
+        /** @return true once a cook has picked this ticket up */
+        public boolean isStarted() { return startedAt != 0; }
+
+        /** @return true once this ticket has been prepared */
+        public boolean isDone() { return doneAt != 0; }
+
+        /** @return true if this ticket was taken back because its order was cancelled */
+        public boolean isCancelled() { return cancelled; }
+
+        /**
+         * Returns how long until this ticket is planned to start.
+         *
+         * @param unit the unit to return
+         * @return the remaining delay; zero or less once it is due
+         */
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(startAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Ticket t = (Ticket) other;
+            int c = Long.compare(startAt, t.startAt);
+            return c != 0 ? c : Long.compare(sequence, t.sequence);
+        }
+
+        @Override
+        public String toString() {
+            return station + " ticket for order #" + orderNumber + " (" + items.size() + " items)";
+        }
+    }
+
+    /**
+     * Told of each ticket queued, started, done or cancelled. Listeners are
+     * called on the thread making the change and must return quickly.
+     */
+    public interface Listener {
+        /**
+         * Called after a ticket has been queued, started, done or cancelled;
+         * its {@link Ticket#isStarted()}, {@link Ticket#isDone()} and
+         * {@link Ticket#isCancelled()} tell which.
+         *
+         * @param ticket the ticket
+         */
+        void ticketChanged(Ticket ticket);
+    }
+
+    /** How many of an order's tickets are still to be done or cancelled. */
+    private static final class Progress {
+        final long submittedAt;
+        final AtomicInteger remaining;
+        final AtomicLong firstDone = new AtomicLong();
+        final AtomicLong lastDone = new AtomicLong();
+
+        Progress(long submittedAt, int tickets) {
+            this.submittedAt = submittedAt;
+            this.remaining = new AtomicInteger(tickets);
+        }
+    }
+
+    /**
+     * A station's free places. A station can be overfilled, leaving fewer
+     * than none free until enough tickets are done.
+     */
+    private static final class Room extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        Room(int places) {
+            super(places);
+        }
+
+        /** Takes a place whether or not one is free. */
+        void overfill() {
+            reducePermits(1);
+        }
+    }
+
+    /** One station's queue, its room for more tickets, and its metrics. */
+    private final class Line {
+        final int capacity;
+        final int cooks;
+        final Room room;
+        final DelayQueue<Ticket> queue = new DelayQueue<>();
+        final Set<Ticket> preparing = ConcurrentHashMap.newKeySet();
+        /** Estimated prep time of the tickets waiting or being prepared. */
+        final AtomicLong backlogNanos = new AtomicLong();
+        final Histogram waitTime;
+        final Counter rejected;
+
+        Line(Station station, int capacity, int cooks) {
+            String name = station.name().toLowerCase(Locale.ROOT);
+            this.capacity = capacity;
+            this.cooks = cooks;
+            this.room = new Room(capacity);
+            this.waitTime = histogram(name + ".wait");
+            this.rejected = counter(name + ".rejected");
+            if (metrics != null) Metrics.gauge(metrics + "." + name + ".depth", this::depth);
+        }
+
+        int depth() {
+            return capacity - room.availablePermits();
+        }
+
+        Ticket started(Ticket t) {
+            t.startedAt = System.nanoTime();
+            preparing.add(t);
+            waitTime.record(Math.max(0, t.startedAt - t.startAt));
+            changed(t);
+            return t;
+        }
+    }
+}
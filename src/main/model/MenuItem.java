@@ -6,6 +6,8 @@ package main.model;
  */
 public abstract class MenuItem {
     protected int quantity;
+    /** The order this item belongs to, kept informed of price changes. */
+    private Order order;
     /**
      * Creates a menu item with the specified quantity.
      *
@@ -35,19 +37,51 @@ public abstract class MenuItem {
      */
     public void setQuantity(int quantity) {
         if (quantity < 1) throw new IllegalArgumentException("quantity must be >= 1");
+        long before = priceCents();
         this.quantity = quantity;
+        repriced(before);
     }
 
     /**
-     * Computes the total price for this menu item,
+     * Attaches this item to the order that holds it, or detaches it when
+     * {@code order} is null.
+     *
+     * @param order the owning order, or null
+     */
+    void setOrder(Order order) { this.order = order; }
+
+    /**
+     * Tells the owning order (if any) that this item's price changed.
+     * Subclasses call this after any change that affects {@link #price()}.
+     *
+     * @param before the price in cents before the change
+     */
+    protected void repriced(long before) {
+        if (order != null) order.itemRepriced(before, priceCents());
+    }
+
+    /**
+     * Computes the total price for this menu item in cents,
      * including quantity and any additional customizations.
      *
+     * @return the total price in cents
+     */
+    public abstract long priceCents();
+
+    /**
+     * Returns the total price for this menu item in dollars.
+     *
      * @return the total price
+     * @see #priceCents()
      */
-    public abstract double price();
+    public final double price() {
+        return Money.toDollars(priceCents());
+    }
 
     @Override
     public String toString() {
-        return getClass().getSimpleName() + " x" + quantity + " $" + String.format("%.2f", price());
+        StringBuilder sb = new StringBuilder(32);
+        sb.append(getClass().getSimpleName()).append(" x").append(quantity).append(" $");
+        return Money.append(sb, priceCents()).toString();
     }
 }
@@ -0,0 +1,61 @@
+package main.model;
+/**
+ * Helpers for amounts of money kept as a whole number of cents in a
+ * {@code long}. All prices, subtotals, tax, and totals in the model are
+ * computed in cents so that adding them up is exact integer arithmetic;
+ * these helpers convert and format those amounts for display.
+ */
+public final class Money {
+
+    private Money() {
+    }
+    /**
+     * Converts an amount in cents to dollars.
+     *
+     * @param cents amount in cents
+     * @return the same amount in dollars
+     */
+    public static double toDollars(long cents) {
+        return cents / 100.0;
+    }
+    /**
+     * Applies a rate given as {@code numerator / denominator} to an amount,
+     * rounding half a cent up (away from zero).
+     *
+     * @param cents       amount in cents
+     * @param numerator   rate numerator
+     * @param denominator rate denominator; must be positive
+     * @return the rounded result in cents
+     */
+    public static long applyRate(long cents, long numerator, long denominator) {
+        long scaled = Math.multiplyExact(cents, numerator);
+        long half = denominator / 2;
+        return scaled >= 0 ? (scaled + half) / denominator : -((-scaled + half) / denominator);
+    }
+    /**
+     * Formats an amount in cents as dollars with two decimals, e.g. "12.34".
+     *
+     * @param cents amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        return append(new StringBuilder(12), cents).toString();
+    }
+    /**
+     * Appends an amount in cents as dollars with two decimals, e.g. "12.34".
+     *
+     * @param sb    buffer to append to
+     * @param cents amount in cents
+     * @return the buffer
+     */
+    public static StringBuilder append(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        sb.append(cents / 100).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+}
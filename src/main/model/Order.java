@@ -3,93 +3,334 @@ package main.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BiConsumer;
 /**
  * Represents a customer's order containing multiple menu items.
  * Supports calculating subtotal, tax, total, and exporting order details.
+ * <p>
+ * The subtotal, tax, and total are kept up to date as items are added,
+ * removed, or changed, so reading them does not walk the item list.
+ * All amounts are kept in whole cents (see {@link Money}); tax is rounded
+ * half a cent up.
+ * </p>
+ * <p>
+ * When an order is placed in {@link StoreOrders} its items are frozen into
+ * packed columns (see {@link ItemColumns}) and the order becomes read-only.
+ * </p>
+ * <p>
+ * A view showing an order while it is built can register a {@link Listener}
+ * to be told of each item added or removed, rather than re-reading the
+ * whole order after every change, or {@link #subscribe subscribe} through an
+ * {@link EventBus} to receive the changes in batches.
+ * </p>
  */
 public class Order {
     public static final double NJ_TAX = 0.06625;
+    /** {@link #NJ_TAX} as an exact fraction, for computing tax in cents. */
+    private static final long NJ_TAX_NUMERATOR = 6625;
+    private static final long NJ_TAX_DENOMINATOR = 100_000;
 
-    private static int NEXT_ID = 10001; // simple auto-increment
     private final int orderNumber;
-    private final List<MenuItem> items;
+    /** The items being built up, or a frozen read-only view once placed. */
+    private List<MenuItem> items;
+    /** When the order was placed (epoch milliseconds), or 0 if not yet placed. */
+    private long placedAt;
+    private long subtotalCents;
+    private long taxCents;
+    private long totalCents;
+    /** Registered listeners, or null if there are none (the common case). */
+    private List<Listener> listeners;
     /**
      * Creates a new empty order with an auto-generated order number.
      */
     public Order() {
-        this.orderNumber = NEXT_ID++;
+        this(OrderNumbers.next());
+    }
+    /**
+     * Creates a new empty order numbered from the given block, for callers
+     * such as registers that create many orders on one thread.
+     *
+     * @param numbers the block to draw the order number from
+     */
+    public Order(OrderNumbers.Block numbers) {
+        this(numbers.next());
+    }
+    /**
+     * Creates a new empty order with the given order number.
+     *
+     * @param orderNumber the order number
+     */
+    private Order(int orderNumber) {
+        this.orderNumber = orderNumber;
         this.items = new ArrayList<>();
     }
+    /**
+     * Recreates a previously placed order with its original number, for
+     * example when replaying the order journal or reading the archive.
+     *
+     * @param orderNumber the original order number
+     * @param placedAt    when the order was placed (epoch milliseconds)
+     * @return an empty order with that number
+     */
+    static Order restore(int orderNumber, long placedAt) {
+        Order o = new Order(orderNumber);
+        o.placedAt = placedAt;
+        return o;
+    }
     /**
      * @return the unique order number
      */
     public int getOrderNumber() { return orderNumber; }
     /**
-     * Returns an unmodifiable list of menu items in this order.
+     * Returns when this order was placed in the store.
+     *
+     * @return epoch milliseconds, or 0 if the order has not been placed
+     */
+    public long getPlacedAt() { return placedAt; }
+    /**
+     * Records when this order was placed, unless it already has a time.
+     *
+     * @param placedAt epoch milliseconds
+     */
+    void markPlaced(long placedAt) {
+        if (this.placedAt == 0) this.placedAt = placedAt;
+    }
+    /**
+     * Packs this order's items into the given columns and makes the order
+     * read-only. The original item objects are detached and may be dropped.
+     * Does nothing if the order is already frozen.
+     *
+     * @param columns where to store the packed items
+     */
+    void freeze(ItemColumns columns) {
+        if (isFrozen()) return;
+        List<MenuItem> building = items;
+        items = columns.freeze(building);
+        for (MenuItem m : building) m.setOrder(null);
+        listeners = null; // a frozen order never changes again
+    }
+    /**
+     * Returns whether this order has been placed and can no longer change.
+     *
+     * @return true if the order is read-only
+     */
+    public boolean isFrozen() { return items instanceof ItemColumns.Frozen; }
+    /**
+     * Returns an unmodifiable list of menu items in this order. Once the
+     * order is frozen, each item read from the list is a detached copy.
      *
      * @return list of menu items
      */
-    public List<MenuItem> getItems() { return Collections.unmodifiableList(items); }
+    public List<MenuItem> getItems() { return isFrozen() ? items : Collections.unmodifiableList(items); }
     /**
      * Adds a menu item to this order.
      *
      * @param item menu item to add
      * @throws IllegalArgumentException if item is null
+     * @throws IllegalStateException if the order has been placed
      */
     public void addItem(MenuItem item) {
         if (item == null) throw new IllegalArgumentException("null item");
+        checkNotFrozen();
         items.add(item);
+        item.setOrder(this);
+        updateTotals(subtotalCents + item.priceCents());
+        if (listeners != null) {
+            for (Listener l : List.copyOf(listeners)) l.itemAdded(items.size() - 1, item);
+        }
     }
     /**
      * Removes a menu item from the order.
      *
      * @param item item to remove
      * @return true if removed
+     * @throws IllegalStateException if the order has been placed
      */
     public boolean removeItem(MenuItem item) {
-        return items.remove(item);
+        checkNotFrozen();
+        int index = items.indexOf(item);
+        if (index < 0) return false;
+        items.remove(index);
+        if (!items.contains(item)) item.setOrder(null);
+        updateTotals(subtotalCents - item.priceCents());
+        if (listeners != null) {
+            for (Listener l : List.copyOf(listeners)) l.itemRemoved(index, item);
+        }
+        return true;
     }
-    /** Clears all items from the order. */
-    public void clear() { items.clear(); }
     /**
-     * Computes the subtotal of all menu items in the order.
+     * Clears all items from the order.
      *
-     * @return subtotal (before tax)
+     * @throws IllegalStateException if the order has been placed
      */
-    public double getSubtotal() {
-        double sum = 0.0;
-        for (MenuItem m : items) sum += m.price();
-        return sum;
+    public void clear() {
+        checkNotFrozen();
+        for (MenuItem m : items) m.setOrder(null);
+        items.clear();
+        updateTotals(0);
+        if (listeners != null) {
+            for (Listener l : List.copyOf(listeners)) l.cleared();
+        }
     }
     /**
-     * Computes the NJ tax for this order.
+     * Registers a listener for changes to this order's items. Listeners are
+     * called on the thread that changes the order, after the item list and
+     * totals have been updated. A placed (frozen) order drops its listeners.
      *
-     * @return tax amount rounded to 2 decimals
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        if (isFrozen()) return;
+        if (listeners == null) listeners = new ArrayList<>(2);
+        listeners.add(listener);
+    }
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        if (listeners != null) listeners.remove(listener);
+    }
+    /**
+     * Subscribes to changes to this order's items through an event bus,
+     * which delivers them in batches and holds the subscriber weakly. The
+     * subscription ends when the returned sink is closed or the subscriber
+     * is garbage collected.
+     *
+     * @param bus        the bus to deliver through
+     * @param subscriber the subscriber, held weakly
+     * @param handler    receives the subscriber and each batch of changes
+     * @param <S>        subscriber type
+     * @return the subscription's sink; close it to unsubscribe
      */
-    public double getTax() {
-        return round2(getSubtotal() * NJ_TAX);
+    public <S> EventBus.Sink<Change> subscribe(EventBus bus, S subscriber,
+                                               BiConsumer<? super S, ? super List<Change>> handler) {
+        EventBus.Sink<Change> sink = bus.subscribe(subscriber, handler);
+        addListener(new Listener() {
+            @Override
+            public void itemAdded(int index, MenuItem item) {
+                post(new Change(Change.Type.ADDED, index, item));
+            }
+
+            @Override
+            public void itemRemoved(int index, MenuItem item) {
+                post(new Change(Change.Type.REMOVED, index, item));
+            }
+
+            @Override
+            public void cleared() {
+                post(new Change(Change.Type.CLEARED, -1, null));
+            }
+
+            private void post(Change change) {
+                if (!sink.post(change)) removeListener(this);
+            }
+        });
+        return sink;
     }
     /**
-     * Computes the total amount owed including tax.
+     * Returns the subtotal of all menu items in the order in cents.
+     *
+     * @return subtotal (before tax) in cents
+     */
+    public long getSubtotalCents() { return subtotalCents; }
+    /**
+     * Returns the NJ tax for this order in cents.
+     *
+     * @return tax amount in cents, rounded half up
+     */
+    public long getTaxCents() { return taxCents; }
+    /**
+     * Returns the total amount owed including tax in cents.
+     *
+     * @return total amount in cents
+     */
+    public long getTotalCents() { return totalCents; }
+    /**
+     * Returns the subtotal of all menu items in the order.
+     *
+     * @return subtotal (before tax)
+     */
+    public double getSubtotal() { return Money.toDollars(subtotalCents); }
+    /**
+     * Returns the NJ tax for this order.
+     *
+     * @return tax amount rounded to 2 decimals
+     */
+    public double getTax() { return Money.toDollars(taxCents); }
+    /**
+     * Returns the total amount owed including tax.
      *
      * @return total amount
      */
-    public double getTotal() {
-        return round2(getSubtotal() + getTax());
+    public double getTotal() { return Money.toDollars(totalCents); }
+    /**
+     * Called by an item in this order when its price changes.
+     *
+     * @param before the item's previous price in cents
+     * @param after  the item's new price in cents
+     */
+    void itemRepriced(long before, long after) {
+        updateTotals(subtotalCents - before + after);
+    }
+    private void checkNotFrozen() {
+        if (isFrozen()) throw new IllegalStateException("order #" + orderNumber + " has already been placed");
+    }
+    /**
+     * Stores a new subtotal and derives the tax and total from it.
+     *
+     * @param newSubtotalCents the new subtotal in cents
+     */
+    private void updateTotals(long newSubtotalCents) {
+        subtotalCents = newSubtotalCents;
+        taxCents = Money.applyRate(subtotalCents, NJ_TAX_NUMERATOR, NJ_TAX_DENOMINATOR);
+        totalCents = subtotalCents + taxCents;
     }
+
+    /**
+     * Told of each change to the items of an order while it is being built.
+     * The order's totals already reflect the change when a method is called.
+     */
+    public interface Listener {
+        /**
+         * Called after an item has been added at the end of the order.
+         *
+         * @param index the item's position in {@link #getItems()}
+         * @param item  the added item
+         */
+        void itemAdded(int index, MenuItem item);
+
+        /**
+         * Called after an item has been removed.
+         *
+         * @param index the position the item was removed from
+         * @param item  the removed item
+         */
+        void itemRemoved(int index, MenuItem item);
+
+        /** Called after all items have been removed. */
+        void cleared();
+    }
+
     /**
-     * Rounds a value to two decimal places.
+     * A change to the items of an order, as delivered by
+     * {@link #subscribe subscribe}.
      *
-     * @param v value to round
-     * @return rounded value
+     * @param type  what happened
+     * @param index the item's position, or -1 for {@link Type#CLEARED}
+     * @param item  the item added or removed, or null for {@link Type#CLEARED}
      */
-    private static double round2(double v) {
-        return Math.round(v * 100.0) / 100.0;
+    public record Change(Type type, int index, MenuItem item) {
+        /** Kinds of change, matching the {@link Listener} methods. */
+        public enum Type { ADDED, REMOVED, CLEARED }
     }
 
     @Override
     public String toString() {
-        return "Order #" + orderNumber + " Subtotal $" + String.format("%.2f", getSubtotal());
+        StringBuilder sb = new StringBuilder(32);
+        sb.append("Order #").append(orderNumber).append(" Subtotal $");
+        return Money.append(sb, subtotalCents).toString();
     }
 
     /**
@@ -102,8 +343,8 @@ public class Order {
         StringBuilder sb = new StringBuilder();
         sb.append("Order ").append(orderNumber)
                 .append(" | ").append(items.size()).append(" items")
-                .append(" | Total: ").append(String.format("%.2f", getSubtotal()))
-                .append(" | [");
+                .append(" | Total: ");
+        Money.append(sb, subtotalCents).append(" | [");
         for (int i = 0; i < items.size(); i++) {
             sb.append(items.get(i).toString());
             if (i < items.size() - 1) sb.append(", ");
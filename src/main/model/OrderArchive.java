@@ -0,0 +1,248 @@
+package main.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only binary archive of completed orders, opened through memory
+ * mapping so that months of history can be searched without loading it onto
+ * the heap.
+ * <p>
+ * An archive is two files. The data file holds a header, one fixed-width
+ * 32-byte header per order (number, item count, placement time, total in
+ * cents, index of its first item), a packed item section with one
+ * {@code long} per item (see {@link PackedItems}), and a table of the donut
+ * flavors the items refer to. The sidecar index file ({@code .idx}) lists
+ * {@code (order number, header slot)} pairs sorted by order number, so
+ * {@link #find(int)} is a binary search over the mapped index.
+ * </p>
+ */
+public final class OrderArchive implements Closeable {
+    /** File name extension of the sidecar index. */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x52554f41; // "RUOA"
+    private static final int INDEX_MAGIC = 0x52554f49; // "RUOI"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER = 40;
+    private static final int ORDER_HEADER = 32;
+    private static final int ITEM = 8;
+    private static final int INDEX_HEADER = 8;
+    private static final int INDEX_ENTRY = 8;
+
+    private final MappedByteBuffer data;
+    private final MappedByteBuffer index;
+    private final int orderCount;
+    private final long itemsOffset;
+    private final String[] flavors;
+
+    private OrderArchive(MappedByteBuffer data, MappedByteBuffer index) throws IOException {
+        this.data = data;
+        this.index = index;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION || index.getInt(0) != INDEX_MAGIC) {
+            throw new IOException("not an order archive");
+        }
+        this.orderCount = data.getInt(8);
+        this.itemsOffset = FILE_HEADER + (long) orderCount * ORDER_HEADER;
+        if (index.getInt(4) != orderCount) throw new IOException("archive index does not match data file");
+        int flavorCount = data.getInt(12);
+        this.flavors = new String[flavorCount];
+        ByteBuffer table = data.duplicate().position(Math.toIntExact(data.getLong(24)));
+        for (int i = 0; i < flavorCount; i++) {
+            byte[] bytes = new byte[table.getShort() & 0xFFFF];
+            table.get(bytes);
+            flavors[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Writes the given orders to a new archive at {@code file} (plus its
+     * {@code .idx} sidecar), replacing any archive already there.
+     *
+     * @param file   the data file to write
+     * @param orders the orders to archive; iterated twice, so it must not
+     *               change in between (a {@link StoreOrders#getOrders()}
+     *               snapshot is fine)
+     * @throws IOException if the archive cannot be written
+     */
+    public static void write(Path file, Collection<Order> orders) throws IOException {
+        int orderCount = 0;
+        long itemCount = 0;
+        Map<String, Integer> flavorIds = new HashMap<>();
+        List<byte[]> flavorBytes = new ArrayList<>();
+        long flavorBytesTotal = 0;
+        for (Order o : orders) {
+            orderCount++;
+            for (MenuItem m : o.getItems()) {
+                itemCount++;
+                if (m instanceof Donut d && d.getFlavor() != null && !flavorIds.containsKey(d.getFlavor())) {
+                    byte[] bytes = d.getFlavor().getBytes(StandardCharsets.UTF_8);
+                    flavorIds.put(d.getFlavor(), flavorBytes.size());
+                    flavorBytes.add(bytes);
+                    flavorBytesTotal += 2 + bytes.length;
+                }
+            }
+        }
+        long itemsOffset = FILE_HEADER + (long) orderCount * ORDER_HEADER;
+        long flavorsOffset = itemsOffset + itemCount * ITEM;
+        long size = flavorsOffset + flavorBytesTotal;
+        if (size > Integer.MAX_VALUE) throw new IOException("too many orders for one archive");
+
+        Path dataTmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path indexTmp = file.resolveSibling(file.getFileName() + INDEX_SUFFIX + ".tmp");
+        long[] numberToSlot = new long[orderCount];
+        try (FileChannel ch = FileChannel.open(dataTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(VERSION).putInt(orderCount).putInt(flavorBytes.size())
+                    .putLong(itemsOffset).putLong(flavorsOffset).putLong(itemCount);
+            int slot = 0;
+            long item = 0;
+            for (Order o : orders) {
+                List<MenuItem> items = o.getItems();
+                out.putInt(o.getOrderNumber()).putInt(items.size()).putLong(o.getPlacedAt())
+                        .putLong(o.getTotalCents()).putLong(item);
+                int at = Math.toIntExact(itemsOffset + item * ITEM);
+                for (MenuItem m : items) {
+                    out.putLong(at, PackedItems.pack(m, flavorIds::get));
+                    at += ITEM;
+                }
+                item += items.size();
+                numberToSlot[slot] = (long) o.getOrderNumber() << 32 | slot;
+                slot++;
+            }
+            out.position(Math.toIntExact(flavorsOffset));
+            for (byte[] bytes : flavorBytes) out.putShort((short) bytes.length).put(bytes);
+            out.force();
+        }
+
+        Arrays.sort(numberToSlot);
+        try (FileChannel ch = FileChannel.open(indexTmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0,
+                    INDEX_HEADER + (long) orderCount * INDEX_ENTRY);
+            out.putInt(INDEX_MAGIC).putInt(orderCount);
+            for (long entry : numberToSlot) out.putLong(entry);
+            out.force();
+        }
+        Files.move(dataTmp, file, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(indexTmp, indexFile(file), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Opens an archive for reading by mapping its data and index files.
+     *
+     * @param file the data file
+     * @return the open archive
+     * @throws IOException if the files cannot be read or are not an archive
+     */
+    public static OrderArchive open(Path file) throws IOException {
+        try (FileChannel data = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel index = FileChannel.open(indexFile(file), StandardOpenOption.READ)) {
+            return new OrderArchive(data.map(FileChannel.MapMode.READ_ONLY, 0, data.size()),
+                    index.map(FileChannel.MapMode.READ_ONLY, 0, index.size()));
+        }
+    }
+
+    /**
+     * Returns the sidecar index file for an archive data file.
+     *
+     * @param file the data file
+     * @return the index file
+     */
+    public static Path indexFile(Path file) {
+        return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the number of orders in the archive
+     */
+    public int size() { return orderCount; }
+
+    /**
+     * Finds the header slot of an order by its number.
+     *
+     * @param orderNumber the order number
+     * @return the slot, or -1 if the order is not in this archive
+     */
+    public int find(int orderNumber) {
+        int lo = 0;
+        int hi = orderCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long entry = index.getLong(INDEX_HEADER + mid * INDEX_ENTRY);
+            int number = (int) (entry >>> 32);
+            if (number < orderNumber) lo = mid + 1;
+            else if (number > orderNumber) hi = mid - 1;
+            else return (int) entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Loads an order by its number.
+     *
+     * @param orderNumber the order number
+     * @return the order, or null if it is not in this archive
+     */
+    public Order findByNumber(int orderNumber) {
+        int slot = find(orderNumber);
+        return slot < 0 ? null : load(slot);
+    }
+
+    /** @param slot header slot, 0 to size()-1 @return the order number */
+    public int orderNumberAt(int slot) { return data.getInt(header(slot)); }
+    /** @param slot header slot @return the number of items in the order */
+    public int itemCountAt(int slot) { return data.getInt(header(slot) + 4); }
+    /** @param slot header slot @return when the order was placed (epoch milliseconds) */
+    public long placedAtAt(int slot) { return data.getLong(header(slot) + 8); }
+    /** @param slot header slot @return the order total in cents */
+    public long totalCentsAt(int slot) { return data.getLong(header(slot) + 16); }
+
+    /**
+     * Rebuilds the order in the given header slot. The order is a detached
+     * copy; changing it does not change the archive.
+     *
+     * @param slot header slot, 0 to size()-1
+     * @return the order
+     */
+    public Order load(int slot) {
+        int h = header(slot);
+        Order o = Order.restore(data.getInt(h), data.getLong(h + 8));
+        int count = data.getInt(h + 4);
+        long first = data.getLong(h + 24);
+        for (int i = 0; i < count; i++) {
+            long packed = data.getLong(Math.toIntExact(itemsOffset + (first + i) * ITEM));
+            o.addItem(PackedItems.unpack(packed, id -> flavors[id]));
+        }
+        return o;
+    }
+
+    /**
+     * Releases this archive. The mapped memory is returned to the system once
+     * the archive is no longer referenced.
+     */
+    @Override
+    public void close() {
+        // Mapped buffers cannot be unmapped explicitly; nothing else to release
+    }
+
+    private int header(int slot) {
+        if (slot < 0 || slot >= orderCount) throw new IndexOutOfBoundsException("slot " + slot);
+        return FILE_HEADER + slot * ORDER_HEADER;
+    }
+}
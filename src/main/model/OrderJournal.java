@@ -0,0 +1,427 @@
+package main.model;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of placed and cancelled orders, so the day's orders
+ * survive a crash or restart.
+ * <p>
+ * Each business day has its own journal file (see
+ * {@link #openDay(Path, LocalDate, StoreOrders)}), so starting on a new day
+ * does not restore, or replay, earlier days' orders. Clearing the store
+ * journaled to, at the close of a day, empties the journal.
+ * </p>
+ * <p>
+ * Each placement or cancellation is queued and written by a background
+ * thread. The thread writes everything that has queued up since its last
+ * write in one go and then syncs the file once for the whole batch (group
+ * commit), so a burst of orders costs one fsync rather than one per order.
+ * The future returned for each record completes once that record is on disk.
+ * </p>
+ * <p>
+ * A journal is usually registered as a {@link StoreOrders.Listener} of the
+ * store it recovered, so each placement and cancellation is queued while
+ * the store's write lock is held. The journal then records changes in
+ * exactly the order the store made them, whichever thread made them.
+ * </p>
+ * <p>
+ * Every record is framed as {@code [int length][int crc32][payload]}. On
+ * startup, {@link #recover(Path, StoreOrders)} replays the journal into a
+ * {@link StoreOrders} and cuts off any record that was only partly written
+ * when the application stopped.
+ * </p>
+ */
+public final class OrderJournal implements Closeable, StoreOrders.Listener {
+
+    private static final byte PLACED = 1;
+    private static final byte CANCELLED = 2;
+    private static final byte DONUT = 0;
+    private static final byte COFFEE = 1;
+    private static final byte SANDWICH = 2;
+    private static final int FRAME_HEADER = 8;
+
+    private static final DonutCategory[] CATEGORIES = DonutCategory.values();
+    private static final CupSize[] SIZES = CupSize.values();
+    private static final Protein[] PROTEINS = Protein.values();
+    private static final Bread[] BREADS = Bread.values();
+    private static final AddIns[] ADD_INS = AddIns.values();
+    private static final AddOns[] ADD_ONS = AddOns.values();
+
+    private final FileChannel channel;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+    /** The future of the record queued last, or null if none has been. */
+    private CompletableFuture<Void> last;
+
+    private OrderJournal(FileChannel channel) {
+        this.channel = channel;
+        this.queue = new LinkedBlockingQueue<>();
+        this.writer = new Thread(this::writeLoop, "order-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens the journal of the given business day in {@code dir}, creating
+     * the directory if needed, and replays it into {@code orders} as
+     * {@link #recover(Path, StoreOrders)} does. Other days' journals are left
+     * untouched.
+     *
+     * @param dir    the directory holding one journal file per day
+     * @param day    the business day
+     * @param orders where to restore the day's journaled orders
+     * @return the open journal
+     * @throws IOException if the directory or file cannot be created, read or opened
+     */
+    public static OrderJournal openDay(Path dir, LocalDate day, StoreOrders orders) throws IOException {
+        Files.createDirectories(dir);
+        return recover(dir.resolve("orders-" + day + ".journal"), orders);
+    }
+
+    /**
+     * Replays the journal at {@code file} into {@code orders}, drops any
+     * partly written record at its end, and opens it for appending. A missing
+     * file is created empty.
+     *
+     * @param file   the journal file
+     * @param orders where to restore the journaled orders
+     * @return the open journal
+     * @throws IOException if the file cannot be read or opened
+     */
+    public static OrderJournal recover(Path file, StoreOrders orders) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long valid = replay(channel, orders);
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            channel.position(valid);
+            return new OrderJournal(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues a record that the given order was placed.
+     *
+     * @param order the placed order
+     * @return a future that completes once the record is on disk
+     */
+    public CompletableFuture<Void> orderPlaced(Order order) {
+        return enqueue(encodePlaced(order));
+    }
+
+    /**
+     * Queues a record that the order with the given number was cancelled.
+     *
+     * @param orderNumber the cancelled order's number
+     * @return a future that completes once the record is on disk
+     */
+    public CompletableFuture<Void> orderCancelled(int orderNumber) {
+        ByteBuffer payload = ByteBuffer.allocate(5);
+        payload.put(CANCELLED).putInt(orderNumber).flip();
+        return enqueue(payload);
+    }
+
+    /**
+     * Returns a future that completes once every record queued so far is on
+     * disk.
+     *
+     * @return a future for the latest record, completed if none is queued
+     */
+    public synchronized CompletableFuture<Void> flushed() {
+        return last == null ? CompletableFuture.completedFuture(null) : last;
+    }
+
+    /**
+     * Queues a record of an order placed in the store listened to.
+     *
+     * @param order the placed order
+     */
+    @Override
+    public void orderAdded(Order order) {
+        orderPlaced(order);
+    }
+
+    /**
+     * Queues a record of an order cancelled from the store listened to.
+     *
+     * @param order the cancelled order
+     */
+    @Override
+    public void orderRemoved(Order order) {
+        orderCancelled(order.getOrderNumber());
+    }
+
+    /**
+     * Queues emptying the journal, since the store listened to no longer
+     * holds any of the orders journaled so far.
+     *
+     * @param orders the removed orders
+     */
+    @Override
+    public void ordersCleared(Collection<Order> orders) {
+        enqueue(null);
+    }
+
+    /**
+     * Writes out everything still queued, then closes the journal file.
+     *
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        queue.add(Pending.STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(ByteBuffer payload) {
+        Pending p = new Pending(payload);
+        if (closed) {
+            p.done.completeExceptionally(new IOException("journal closed"));
+        } else {
+            queue.add(p);
+        }
+        last = p.done;
+        return p.done;
+    }
+
+    /** Body of the writer thread: drain, write, sync, complete, repeat. */
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+        CRC32 crc = new CRC32();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            if (batch.remove(Pending.STOP)) stop = true;
+            int restart = -1;
+            for (int i = 0; i < batch.size(); i++) if (batch.get(i).payload == null) restart = i;
+            if (restart >= 0) {
+                // Records before the last restart are of cleared orders and need not be written
+                List<Pending> superseded = batch.subList(0, restart + 1);
+                try {
+                    channel.truncate(0);
+                    channel.position(0);
+                    channel.force(true);
+                    for (Pending p : superseded) p.done.complete(null);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    for (Pending p : superseded) p.done.completeExceptionally(e);
+                }
+                superseded.clear();
+            }
+            if (batch.isEmpty()) continue;
+
+            int needed = 0;
+            for (Pending p : batch) needed += FRAME_HEADER + p.payload.remaining();
+            if (needed > buf.capacity()) buf = ByteBuffer.allocateDirect(Integer.highestOneBit(needed) << 1);
+            buf.clear();
+            for (Pending p : batch) {
+                crc.reset();
+                crc.update(p.payload.duplicate());
+                buf.putInt(p.payload.remaining()).putInt((int) crc.getValue()).put(p.payload);
+            }
+            buf.flip();
+            long position = -1;
+            try {
+                position = channel.position();
+                while (buf.hasRemaining()) channel.write(buf);
+                channel.force(false);
+                for (Pending p : batch) p.done.complete(null);
+            } catch (IOException e) {
+                e.printStackTrace();
+                for (Pending p : batch) p.done.completeExceptionally(e);
+                discardFrom(position);
+            }
+            batch.clear();
+        }
+        // Anything queued while closing is not written
+        queue.drainTo(batch);
+        for (Pending p : batch) p.done.completeExceptionally(new IOException("journal closed"));
+    }
+
+    /**
+     * Cuts a failed batch off the end of the journal so that later batches
+     * are not written after a partial record.
+     *
+     * @param position where the failed batch started, or -1 if unknown
+     */
+    private void discardFrom(long position) {
+        if (position < 0) return;
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ByteBuffer encodePlaced(Order order) {
+        List<MenuItem> items = order.getItems();
+        int size = 1 + 4 + 8 + 4;
+        for (MenuItem m : items) {
+            size += 1 + 4 + 3;
+            if (m instanceof Donut d && d.getFlavor() != null) size += 2 + d.getFlavor().length() * 3;
+            else size += 2;
+        }
+        ByteBuffer b = ByteBuffer.allocate(size);
+        b.put(PLACED).putInt(order.getOrderNumber()).putLong(order.getPlacedAt()).putInt(items.size());
+        for (MenuItem m : items) {
+            if (m instanceof Donut d) {
+                b.put(DONUT).put((byte) d.getType().ordinal());
+                if (d.getFlavor() == null) {
+                    b.putShort((short) -1);
+                } else {
+                    byte[] flavor = d.getFlavor().getBytes(StandardCharsets.UTF_8);
+                    b.putShort((short) flavor.length).put(flavor);
+                }
+            } else if (m instanceof Coffee c) {
+                b.put(COFFEE).put((byte) c.getSize().ordinal()).put((byte) c.addInMask());
+            } else if (m instanceof Sandwich s) {
+                b.put(SANDWICH).put((byte) s.getProtein().ordinal())
+                        .put((byte) s.getBread().ordinal()).put((byte) s.addOnMask);
+            } else {
+                throw new IllegalArgumentException("cannot journal " + m.getClass().getSimpleName());
+            }
+            b.putInt(m.getQuantity());
+        }
+        return b.flip();
+    }
+
+    /**
+     * Applies every intact record in the journal to {@code orders}.
+     *
+     * @return the length of the intact prefix of the journal
+     */
+    private static long replay(FileChannel channel, StoreOrders orders) throws IOException {
+        long size = channel.size();
+        if (size == 0) return 0;
+        ByteBuffer map = ByteBuffer.allocate(Math.toIntExact(size));
+        while (map.hasRemaining() && channel.read(map, map.position()) >= 0) {
+            // keep reading until the buffer is full
+        }
+        map.flip();
+        CRC32 crc = new CRC32();
+        while (map.remaining() >= FRAME_HEADER) {
+            int start = map.position();
+            int length = map.getInt();
+            int expected = map.getInt();
+            if (length <= 0 || length > map.remaining()) return start;
+            ByteBuffer payload = map.slice(map.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expected) return start;
+            try {
+                apply(payload, orders);
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                return start;
+            }
+            map.position(start + FRAME_HEADER + length);
+        }
+        return map.position();
+    }
+
+    private static void apply(ByteBuffer b, StoreOrders orders) {
+        byte type = b.get();
+        int number = b.getInt();
+        if (type == CANCELLED) {
+            orders.cancelByNumber(number);
+            return;
+        }
+        if (type != PLACED) throw new IllegalArgumentException("unknown record type " + type);
+        OrderNumbers.advancePast(number);
+        Order order = Order.restore(number, b.getLong());
+        int count = b.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = b.get();
+            MenuItem item;
+            switch (kind) {
+                case DONUT -> {
+                    DonutCategory category = CATEGORIES[b.get()];
+                    short length = b.getShort();
+                    String flavor = null;
+                    if (length >= 0) {
+                        byte[] bytes = new byte[length];
+                        b.get(bytes);
+                        flavor = new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    item = new Donut(category, flavor, 1);
+                }
+                case COFFEE -> {
+                    Coffee c = new Coffee(SIZES[b.get()], 1);
+                    int mask = b.get();
+                    for (AddIns a : ADD_INS) if ((mask & 1 << a.ordinal()) != 0) c.addAddIn(a);
+                    item = c;
+                }
+                case SANDWICH -> {
+                    Protein protein = PROTEINS[b.get()];
+                    Sandwich s = new Sandwich(BREADS[b.get()], protein, 1);
+                    int mask = b.get();
+                    for (AddOns a : ADD_ONS) if ((mask & 1 << a.ordinal()) != 0) s.addAddOn(a);
+                    item = s;
+                }
+                default -> throw new IllegalArgumentException("unknown item kind " + kind);
+            }
+            item.setQuantity(b.getInt());
+            order.addItem(item);
+        }
+        orders.addOrder(order);
+    }
+
+    /**
+     * A queued record and the future to complete once it is durable. A null
+     * payload empties the journal instead.
+     */
+    private static final class Pending {
+        static final Pending STOP = new Pending(ByteBuffer.allocate(0));
+
+        final ByteBuffer payload;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(ByteBuffer payload) {
+            this.payload = payload;
+        }
+    }
+}
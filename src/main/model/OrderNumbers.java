@@ -0,0 +1,94 @@
+package main.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * Hands out unique order numbers, starting at {@link #FIRST}.
+ * <p>
+ * {@link #next()} takes one number from a shared atomic counter and is safe
+ * to call from any thread without locking. Registers or importers that create
+ * orders at a high rate can instead {@link #reserve(int) reserve} a
+ * {@link Block} of numbers and draw from it locally, touching the shared
+ * counter only once per block. Numbers are never handed out twice, but a
+ * block that is dropped before it is used up leaves a gap.
+ * </p>
+ */
+public final class OrderNumbers {
+    /** The first order number handed out. */
+    public static final int FIRST = 10001;
+
+    private static final AtomicInteger NEXT = new AtomicInteger(FIRST);
+
+    private OrderNumbers() {
+    }
+    /**
+     * Returns a new unique order number.
+     *
+     * @return the order number
+     * @throws IllegalStateException if order numbers have run out
+     */
+    public static int next() {
+        return take(1);
+    }
+    /**
+     * Reserves a block of order numbers for use by a single thread.
+     *
+     * @param size how many numbers to take from the shared counter at a time
+     * @return a new block
+     * @throws IllegalArgumentException if size &lt; 1
+     */
+    public static Block reserve(int size) {
+        if (size < 1) throw new IllegalArgumentException("block size must be >= 1");
+        return new Block(size);
+    }
+    /**
+     * Makes sure numbers handed out from now on are greater than
+     * {@code orderNumber}, for example after restoring orders from disk.
+     *
+     * @param orderNumber a number that is already in use
+     */
+    static void advancePast(int orderNumber) {
+        NEXT.accumulateAndGet(orderNumber + 1, Math::max);
+    }
+    /**
+     * Takes {@code count} consecutive numbers from the shared counter.
+     *
+     * @param count how many numbers to take
+     * @return the first number taken
+     */
+    private static int take(int count) {
+        int start = NEXT.getAndAdd(count);
+        if (start < FIRST || start - 1 > Integer.MAX_VALUE - count) {
+            throw new IllegalStateException("order numbers exhausted");
+        }
+        return start;
+    }
+
+    /**
+     * A run of order numbers owned by one thread (for example, one register).
+     * When the run is used up the block reserves another of the same size.
+     * A block is not thread-safe; give each thread its own.
+     */
+    public static final class Block {
+        private final int size;
+        private int next;
+        private int remaining;
+
+        private Block(int size) {
+            this.size = size;
+        }
+        /**
+         * Returns the next order number from this block.
+         *
+         * @return a unique order number
+         * @throws IllegalStateException if order numbers have run out
+         */
+        public int next() {
+            if (remaining == 0) {
+                next = take(size);
+                remaining = size;
+            }
+            remaining--;
+            return next++;
+        }
+    }
+}
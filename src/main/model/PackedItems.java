@@ -0,0 +1,102 @@
+package main.model;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+/**
+ * Packs a menu item into a single {@code long} and back, for compact storage
+ * of placed orders.
+ * <p>
+ * Bit layout, from least significant: quantity (32 bits), flavor id
+ * (16 bits, donuts only), add-in/add-on bitmask (8 bits), first enum ordinal
+ * (3 bits: donut category, cup size, or protein), second enum ordinal
+ * (3 bits: bread), and item kind (2 bits). Flavors are stored as ids into a
+ * table supplied by the caller.
+ * </p>
+ */
+final class PackedItems {
+    static final int DONUT = 0;
+    static final int COFFEE = 1;
+    static final int SANDWICH = 2;
+    /** Flavor id used for a donut without a flavor. */
+    static final int NO_FLAVOR = 0xFFFF;
+
+    private static final DonutCategory[] CATEGORIES = DonutCategory.values();
+    private static final CupSize[] SIZES = CupSize.values();
+    private static final Protein[] PROTEINS = Protein.values();
+    private static final Bread[] BREADS = Bread.values();
+    private static final AddIns[] ADD_INS = AddIns.values();
+    private static final AddOns[] ADD_ONS = AddOns.values();
+
+    private PackedItems() {
+    }
+    /**
+     * Packs a menu item.
+     *
+     * @param item      the item to pack
+     * @param flavorIds maps a donut flavor to its id (below {@link #NO_FLAVOR})
+     * @return the packed item
+     * @throws IllegalArgumentException if the item is not a donut, coffee, or sandwich
+     */
+    static long pack(MenuItem item, ToIntFunction<String> flavorIds) {
+        if (item instanceof Donut d) {
+            int flavor = d.getFlavor() == null ? NO_FLAVOR : flavorIds.applyAsInt(d.getFlavor());
+            return bits(DONUT, d.getType().ordinal(), 0, 0, flavor, d.getQuantity());
+        } else if (item instanceof Coffee c) {
+            return bits(COFFEE, c.getSize().ordinal(), 0, c.addInMask(), NO_FLAVOR, c.getQuantity());
+        } else if (item instanceof Sandwich s) {
+            return bits(SANDWICH, s.getProtein().ordinal(), s.getBread().ordinal(), s.addOnMask,
+                    NO_FLAVOR, s.getQuantity());
+        }
+        throw new IllegalArgumentException("cannot pack " + item.getClass().getSimpleName());
+    }
+    /**
+     * Rebuilds a menu item from its packed form. The item is a new, detached
+     * object; changing it does not change the packed data.
+     *
+     * @param packed  the packed item
+     * @param flavors maps a flavor id back to the flavor
+     * @return the menu item
+     */
+    static MenuItem unpack(long packed, IntFunction<String> flavors) {
+        int quantity = quantity(packed);
+        int first = first(packed);
+        int mask = mask(packed);
+        switch (kind(packed)) {
+            case DONUT -> {
+                int flavor = flavor(packed);
+                return new Donut(CATEGORIES[first], flavor == NO_FLAVOR ? null : flavors.apply(flavor), quantity);
+            }
+            case COFFEE -> {
+                Coffee c = new Coffee(SIZES[first], quantity);
+                for (AddIns a : ADD_INS) if ((mask & 1 << a.ordinal()) != 0) c.addAddIn(a);
+                return c;
+            }
+            case SANDWICH -> {
+                Sandwich s = new Sandwich(BREADS[second(packed)], PROTEINS[first], quantity);
+                for (AddOns a : ADD_ONS) if ((mask & 1 << a.ordinal()) != 0) s.addAddOn(a);
+                return s;
+            }
+            default -> throw new IllegalArgumentException("unknown item kind " + kind(packed));
+        }
+    }
+
+    static int kind(long packed) { return (int) (packed >>> 62); }
+    static int second(long packed) { return (int) (packed >>> 59) & 0x7; }
+    static int first(long packed) { return (int) (packed >>> 56) & 0x7; }
+    static int mask(long packed) { return (int) (packed >>> 48) & 0xFF; }
+    static int flavor(long packed) { return (int) (packed >>> 32) & 0xFFFF; }
+    static int quantity(long packed) { return (int) packed; }
+
+    private static long bits(int kind, int first, int second, int mask, int flavor, int quantity) {
+        if (flavor < 0 || flavor > NO_FLAVOR) throw new IllegalArgumentException("flavor id out of range: " + flavor);
+        return (long) kind << 62 | (long) second << 59 | (long) first << 56 | (long) mask << 48
+                | (long) flavor << 32 | (quantity & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,295 @@
+package main.model;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+/**
+ * End-of-day sales figures for a set of orders: units sold and revenue by
+ * donut category and flavor, by cup size and coffee add-in, and by sandwich
+ * protein, bread, and add-on, plus tax collected and the average ticket.
+ * <p>
+ * A report can be computed sequentially, or in parallel on the common
+ * fork-join pool, where each worker tallies a share of the orders and the
+ * partial tallies are merged. Both give identical results. Items are tallied
+ * from their packed form (see {@link PackedItems}), so placed orders are
+ * read straight from the store's columns without building item objects.
+ * </p>
+ * <p>
+ * Revenue by add-in or add-on is the extra charged for it. Revenue by bread
+ * is the full price of the sandwiches on that bread.
+ * </p>
+ */
+public final class SalesReport {
+    private static final DonutCategory[] CATEGORIES = DonutCategory.values();
+    private static final CupSize[] SIZES = CupSize.values();
+    private static final AddIns[] ADD_INS = AddIns.values();
+    private static final Protein[] PROTEINS = Protein.values();
+    private static final Bread[] BREADS = Bread.values();
+    private static final AddOns[] ADD_ONS = AddOns.values();
+
+    /**
+     * Units sold and the revenue they brought in.
+     *
+     * @param units        number of units sold
+     * @param revenueCents revenue in cents, before tax
+     */
+    public record Line(long units, long revenueCents) {
+    }
+
+    private final long orderCount;
+    private final long subtotalCents;
+    private final long taxCents;
+    private final long totalCents;
+    private final Map<DonutCategory, Line> byDonutCategory;
+    private final Map<String, Line> byFlavor;
+    private final Map<CupSize, Line> byCupSize;
+    private final Map<AddIns, Line> byAddIn;
+    private final Map<Protein, Line> byProtein;
+    private final Map<Bread, Line> byBread;
+    private final Map<AddOns, Line> byAddOn;
+
+    private SalesReport(Tally t) {
+        orderCount = t.orders;
+        subtotalCents = t.subtotal;
+        taxCents = t.tax;
+        totalCents = t.total;
+        byDonutCategory = lines(CATEGORIES, t.donutUnits, t.donutCents);
+        byCupSize = lines(SIZES, t.coffeeUnits, t.coffeeCents);
+        byAddIn = lines(ADD_INS, t.addInUnits, t.addInCents);
+        byProtein = lines(PROTEINS, t.proteinUnits, t.proteinCents);
+        byBread = lines(BREADS, t.breadUnits, t.breadCents);
+        byAddOn = lines(ADD_ONS, t.addOnUnits, t.addOnCents);
+        Map<String, Line> flavors = new TreeMap<>();
+        for (int id = 0; id < t.flavorUnits.length; id++) {
+            if (t.flavorUnits[id] != 0) {
+                flavors.put(FlavorCatalog.nameOf(id), new Line(t.flavorUnits[id], t.flavorCents[id]));
+            }
+        }
+        byFlavor = Collections.unmodifiableMap(flavors);
+    }
+
+    /**
+     * Computes a report on the calling thread.
+     *
+     * @param orders the orders to report on, e.g. {@link StoreOrders#getOrders()}
+     * @return the report
+     */
+    public static SalesReport sequential(Collection<Order> orders) {
+        Tally t = new Tally();
+        for (Order o : orders) t.add(o);
+        return new SalesReport(t);
+    }
+
+    /**
+     * Computes a report using all cores. The orders are copied to an array
+     * once so that the work splits evenly.
+     *
+     * @param orders the orders to report on, e.g. {@link StoreOrders#getOrders()}
+     * @return the report, identical to {@link #sequential(Collection)}
+     */
+    public static SalesReport parallel(Collection<Order> orders) {
+        Order[] all = orders.toArray(new Order[0]);
+        return new SalesReport(Arrays.stream(all).parallel().collect(Tally::new, Tally::add, Tally::merge));
+    }
+
+    /** @return the number of orders */
+    public long getOrderCount() { return orderCount; }
+    /** @return the sum of the order subtotals in cents */
+    public long getSubtotalCents() { return subtotalCents; }
+    /** @return the tax collected in cents */
+    public long getTaxCents() { return taxCents; }
+    /** @return the sum of the order totals in cents */
+    public long getTotalCents() { return totalCents; }
+    /**
+     * Returns the average order total, rounded half a cent up.
+     *
+     * @return average ticket in cents, or 0 if there are no orders
+     */
+    public long getAverageTicketCents() {
+        return orderCount == 0 ? 0 : Money.applyRate(totalCents, 1, orderCount);
+    }
+    /** @return donut sales by category */
+    public Map<DonutCategory, Line> byDonutCategory() { return byDonutCategory; }
+    /** @return donut sales by flavor, sorted by flavor name */
+    public Map<String, Line> byFlavor() { return byFlavor; }
+    /** @return coffee sales by cup size */
+    public Map<CupSize, Line> byCupSize() { return byCupSize; }
+    /** @return cups sold with each add-in, and the add-in charges */
+    public Map<AddIns, Line> byAddIn() { return byAddIn; }
+    /** @return sandwich sales by protein */
+    public Map<Protein, Line> byProtein() { return byProtein; }
+    /** @return sandwich sales by bread */
+    public Map<Bread, Line> byBread() { return byBread; }
+    /** @return sandwiches sold with each add-on, and the add-on charges */
+    public Map<AddOns, Line> byAddOn() { return byAddOn; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SalesReport r)) return false;
+        return orderCount == r.orderCount && subtotalCents == r.subtotalCents && taxCents == r.taxCents
+                && totalCents == r.totalCents && byDonutCategory.equals(r.byDonutCategory)
+                && byFlavor.equals(r.byFlavor) && byCupSize.equals(r.byCupSize) && byAddIn.equals(r.byAddIn)
+                && byProtein.equals(r.byProtein) && byBread.equals(r.byBread) && byAddOn.equals(r.byAddOn);
+    }
+
+    @Override
+    public int hashCode() {
+        return List.of(orderCount, totalCents, byDonutCategory, byFlavor, byCupSize, byProtein).hashCode();
+    }
+
+    /**
+     * Returns the report as text, one section per breakdown.
+     *
+     * @return the formatted report
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append("Orders: ").append(orderCount).append("\n");
+        Money.append(sb.append("Subtotal: $"), subtotalCents).append("\n");
+        Money.append(sb.append("Tax: $"), taxCents).append("\n");
+        Money.append(sb.append("Total: $"), totalCents).append("\n");
+        Money.append(sb.append("Average ticket: $"), getAverageTicketCents()).append("\n");
+        section(sb, "Donuts by category", byDonutCategory);
+        section(sb, "Donuts by flavor", byFlavor);
+        section(sb, "Coffee by size", byCupSize);
+        section(sb, "Coffee add-ins", byAddIn);
+        section(sb, "Sandwiches by protein", byProtein);
+        section(sb, "Sandwiches by bread", byBread);
+        section(sb, "Sandwich add-ons", byAddOn);
+        return sb.toString();
+    }
+
+    private static void section(StringBuilder sb, String title, Map<?, Line> lines) {
+        sb.append("\n").append(title).append(":\n");
+        for (Map.Entry<?, Line> e : lines.entrySet()) {
+            sb.append("  ").append(e.getKey()).append(": ").append(e.getValue().units()).append(" sold, $");
+            Money.append(sb, e.getValue().revenueCents()).append("\n");
+        }
+    }
+
+    private static <E extends Enum<E>> Map<E, Line> lines(E[] keys, long[] units, long[] cents) {
+        Map<E, Line> map = new EnumMap<>(keys[0].getDeclaringClass());
+        for (E k : keys) map.put(k, new Line(units[k.ordinal()], cents[k.ordinal()]));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /** Running totals for some of the orders; merged when computing in parallel. */
+    private static final class Tally {
+        long orders;
+        long subtotal;
+        long tax;
+        long total;
+        final long[] donutUnits = new long[CATEGORIES.length];
+        final long[] donutCents = new long[CATEGORIES.length];
+        long[] flavorUnits = new long[16];
+        long[] flavorCents = new long[16];
+        final long[] coffeeUnits = new long[SIZES.length];
+        final long[] coffeeCents = new long[SIZES.length];
+        final long[] addInUnits = new long[ADD_INS.length];
+        final long[] addInCents = new long[ADD_INS.length];
+        final long[] proteinUnits = new long[PROTEINS.length];
+        final long[] proteinCents = new long[PROTEINS.length];
+        final long[] breadUnits = new long[BREADS.length];
+        final long[] breadCents = new long[BREADS.length];
+        final long[] addOnUnits = new long[ADD_ONS.length];
+        final long[] addOnCents = new long[ADD_ONS.length];
+
+        void add(Order o) {
+            orders++;
+            subtotal += o.getSubtotalCents();
+            tax += o.getTaxCents();
+            total += o.getTotalCents();
+            List<MenuItem> items = o.getItems();
+            if (items instanceof ItemColumns.Frozen frozen) {
+                for (int i = 0; i < frozen.size(); i++) item(frozen.packed(i));
+            } else {
+                for (MenuItem m : items) item(PackedItems.pack(m, FlavorCatalog::idOf));
+            }
+        }
+
+        private void item(long packed) {
+            int q = PackedItems.quantity(packed);
+            int first = PackedItems.first(packed);
+            int mask = PackedItems.mask(packed);
+            switch (PackedItems.kind(packed)) {
+                case PackedItems.DONUT -> {
+                    long cents = Donut.unitCents(CATEGORIES[first]) * q;
+                    donutUnits[first] += q;
+                    donutCents[first] += cents;
+                    int flavor = PackedItems.flavor(packed);
+                    if (flavor != PackedItems.NO_FLAVOR) {
+                        if (flavor >= flavorUnits.length) growFlavors(flavor + 1);
+                        flavorUnits[flavor] += q;
+                        flavorCents[flavor] += cents;
+                    }
+                }
+                case PackedItems.COFFEE -> {
+                    coffeeUnits[first] += q;
+                    coffeeCents[first] += Coffee.unitCents(first, mask) * q;
+                    for (int m = mask; m != 0; m &= m - 1) {
+                        int a = Integer.numberOfTrailingZeros(m);
+                        addInUnits[a] += q;
+                        addInCents[a] += Coffee.ADD_IN_CENTS * q;
+                    }
+                }
+                case PackedItems.SANDWICH -> {
+                    long cents = Sandwich.unitCents(first, mask) * q;
+                    int bread = PackedItems.second(packed);
+                    proteinUnits[first] += q;
+                    proteinCents[first] += cents;
+                    breadUnits[bread] += q;
+                    breadCents[bread] += cents;
+                    for (int m = mask; m != 0; m &= m - 1) {
+                        int a = Integer.numberOfTrailingZeros(m);
+                        addOnUnits[a] += q;
+                        addOnCents[a] += Sandwich.addOnCents(ADD_ONS[a]) * q;
+                    }
+                }
+                default -> throw new IllegalArgumentException("unknown item kind " + PackedItems.kind(packed));
+            }
+        }
+
+        private void growFlavors(int size) {
+            flavorUnits = Arrays.copyOf(flavorUnits, Math.max(size, flavorUnits.length * 2));
+            flavorCents = Arrays.copyOf(flavorCents, flavorUnits.length);
+        }
+
+        void merge(Tally other) {
+            orders += other.orders;
+            subtotal += other.subtotal;
+            tax += other.tax;
+            total += other.total;
+            if (other.flavorUnits.length > flavorUnits.length) growFlavors(other.flavorUnits.length);
+            sum(flavorUnits, other.flavorUnits);
+            sum(flavorCents, other.flavorCents);
+            sum(donutUnits, other.donutUnits);
+            sum(donutCents, other.donutCents);
+            sum(coffeeUnits, other.coffeeUnits);
+            sum(coffeeCents, other.coffeeCents);
+            sum(addInUnits, other.addInUnits);
+            sum(addInCents, other.addInCents);
+            sum(proteinUnits, other.proteinUnits);
+            sum(proteinCents, other.proteinCents);
+            sum(breadUnits, other.breadUnits);
+            sum(breadCents, other.breadCents);
+            sum(addOnUnits, other.addOnUnits);
+            sum(addOnCents, other.addOnCents);
+        }
+
+        private static void sum(long[] into, long[] from) {
+            for (int i = 0; i < from.length; i++) into[i] += from[i];
+        }
+    }
+}
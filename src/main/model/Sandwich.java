@@ -3,15 +3,40 @@ package main.model;
 import main.enums.Bread;
 import main.enums.Protein;
 import main.enums.AddOns;
-import java.util.ArrayList;
+import java.util.Set;
 /**
  * Represents a sandwich order consisting of bread type, protein choice,
  * optional add-ons, and a quantity.
  */
 public class Sandwich extends MenuItem {
+    private static final long CHEESE_CENTS = 100;
+    private static final long VEGGIE_CENTS = 30;
+    /**
+     * Unit price in cents for every protein and set of add-ons, indexed by
+     * {@code protein.ordinal() << ADD_ON_COUNT | addOnMask}. Built once when
+     * the class loads from the prices above.
+     */
+    private static final long[] UNIT_CENTS;
+    private static final AddOns[] ADD_ONS = AddOns.values();
+    private static final int ADD_ON_COUNT = ADD_ONS.length;
+
+    static {
+        int sets = 1 << ADD_ON_COUNT;
+        int cheese = 1 << AddOns.CHEESE.ordinal();
+        UNIT_CENTS = new long[Protein.values().length * sets];
+        for (Protein p : Protein.values()) {
+            for (int mask = 0; mask < sets; mask++) {
+                long extras = (mask & cheese) != 0 ? CHEESE_CENTS : 0;
+                extras += VEGGIE_CENTS * Integer.bitCount(mask & ~cheese); // lettuce, tomatoes, onions
+                UNIT_CENTS[p.ordinal() << ADD_ON_COUNT | mask] = baseCents(p) + extras;
+            }
+        }
+    }
+
     protected Bread bread;
     protected Protein protein;
-    protected ArrayList<AddOns> addOns;
+    /** Bit {@code a.ordinal()} is set for each add-on {@code a} on this sandwich. */
+    protected int addOnMask;
     /**
      * Creates a sandwich with the selected bread, protein, and quantity.
      *
@@ -25,7 +50,6 @@ public class Sandwich extends MenuItem {
         if (bread == null || protein == null) throw new IllegalArgumentException("bread/protein required");
         this.bread = bread;
         this.protein = protein;
-        this.addOns = new ArrayList<>();
     }
 
     /** @return the selected bread type */
@@ -35,25 +59,42 @@ public class Sandwich extends MenuItem {
     /** @return the selected protein */
     public Protein getProtein() { return protein; }
     /** @param protein new protein */
-    public void setProtein(Protein protein) { this.protein = protein; }
-    /** @return list of add-ons */
-    public ArrayList<AddOns> getAddOns() { return addOns; }
+    public void setProtein(Protein protein) {
+        if (protein == null) throw new IllegalArgumentException("bread/protein required");
+        long before = priceCents();
+        this.protein = protein;
+        repriced(before);
+    }
+    /** @return read-only view of the add-ons, in declaration order */
+    public Set<AddOns> getAddOns() { return new EnumMaskSet<>(ADD_ONS, () -> addOnMask); }
     /**
      * Adds an add-on to this sandwich.
      *
      * @param a the add-on
      * @return true if added; false if already present
      */
-    public boolean addAddOn(AddOns a) { return a != null && !addOns.contains(a) && addOns.add(a); }
+    public boolean addAddOn(AddOns a) {
+        if (a == null || (addOnMask & 1 << a.ordinal()) != 0) return false;
+        long before = priceCents();
+        addOnMask |= 1 << a.ordinal();
+        repriced(before);
+        return true;
+    }
     /**
      * Removes an add-on from the sandwich.
      *
      * @param a the add-on to remove
      * @return true if removed
      */
-    public boolean removeAddOn(AddOns a) { return addOns.remove(a); }
+    public boolean removeAddOn(AddOns a) {
+        if (a == null || (addOnMask & 1 << a.ordinal()) == 0) return false;
+        long before = priceCents();
+        addOnMask &= ~(1 << a.ordinal());
+        repriced(before);
+        return true;
+    }
     /**
-     * Computes the total price of this sandwich.
+     * Computes the total price of this sandwich in cents.
      * Protein determines base price:
      *  - Beef: 12.99
      *  - Chicken: 10.99
@@ -62,22 +103,46 @@ public class Sandwich extends MenuItem {
      *  - Cheese: +1.00
      *  - Lettuce/Tomato/Onion: +0.30 each
      *
-     * @return the total price
+     * The unit price is read from a table precomputed for every protein and
+     * combination of add-ons.
+     *
+     * @return the total price in cents
      */
     @Override
-    public double price() {
-        double base;
+    public long priceCents() {
+        return unitCents(protein.ordinal(), addOnMask) * quantity;
+    }
+    /**
+     * Returns the price of one sandwich in cents.
+     *
+     * @param protein   protein ordinal
+     * @param addOnMask add-on bitmask
+     * @return unit price in cents
+     */
+    static long unitCents(int protein, int addOnMask) {
+        return UNIT_CENTS[protein << ADD_ON_COUNT | addOnMask];
+    }
+    /**
+     * Returns the price of one add-on on one sandwich in cents.
+     *
+     * @param addOn the add-on
+     * @return add-on price in cents
+     */
+    static long addOnCents(AddOns addOn) {
+        return addOn == AddOns.CHEESE ? CHEESE_CENTS : VEGGIE_CENTS;
+    }
+    /**
+     * Returns the base price in cents for a sandwich with the given protein.
+     *
+     * @param protein the protein
+     * @return base price in cents
+     */
+    private static long baseCents(Protein protein) {
         switch (protein) {
-            case BEEF: base = 12.99; break;
-            case CHICKEN: base = 10.99; break;
-            case SALMON: base = 14.99; break;
+            case BEEF: return 1299;
+            case CHICKEN: return 1099;
+            case SALMON: return 1499;
             default: throw new IllegalStateException("Unknown protein");
         }
-        double extras = 0.0;
-        for (AddOns a : addOns) {
-            if (a == AddOns.CHEESE) extras += 1.00;
-            else extras += 0.30; // lettuce, tomatoes, onions
-        }
-        return (base + extras) * quantity;
     }
 }
@@ -1,29 +1,209 @@
 package main.model;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import main.metrics.Counter;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
 
 /**
  * The StoreOrders class keeps track of all orders placed in the store.
  * It allows adding, removing, viewing, and exporting orders.
+ * <p>
+ * Orders are indexed by their order number, so looking up, adding, and
+ * cancelling an order take constant time no matter how many orders have been
+ * placed during the day.
+ * </p>
+ * <p>
+ * A single StoreOrders is shared by every register and is safe to use from
+ * many threads at once. Orders are appended to a log in the order they were
+ * placed; adding and cancelling hold a short lock around that O(1) update,
+ * while lookups and readers never lock. {@link #getOrders()} returns a
+ * point-in-time snapshot, so export, reports, and the list view see a
+ * consistent set of orders even while other threads keep placing and
+ * cancelling them.
+ * </p>
+ * <p>
+ * Placed orders are frozen: their items are packed into large primitive
+ * columns owned by the store, so a day's orders cost a few longs each
+ * rather than a graph of item objects and strings.
+ * </p>
+ * <p>
+ * Views that show the orders can register a {@link Listener} to be told of
+ * each order placed or cancelled, instead of re-reading every order, or
+ * {@link #subscribe subscribe} through an {@link EventBus} to receive them
+ * in batches on the JavaFX thread.
+ * </p>
  */
 public class StoreOrders {
 
-    private ArrayList<Order> orders;
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private static final Histogram PLACE_TIME = Metrics.histogram("store.place");
+    private static final Histogram PLACE_BATCH_TIME = Metrics.histogram("store.placeBatch");
+    private static final Histogram EXPORT_TIME = Metrics.histogram("store.export");
+    private static final Counter PLACED = Metrics.counter("store.placed");
+    private static final Counter CANCELLED = Metrics.counter("store.cancelled");
+
+    /** Placed, not-cancelled orders by order number. */
+    private final ConcurrentHashMap<Integer, Entry> index;
+    /** Serializes writers; readers go through {@link #state} instead. */
+    private final ReentrantLock writeLock;
+    /**
+     * Packed items of placed orders; written, and replaced by {@link #clear()},
+     * only under {@link #writeLock}.
+     */
+    private ItemColumns columns;
+    private final CopyOnWriteArrayList<Listener> listeners;
+    /** The latest published state; replaced (never mutated) by each write. */
+    private volatile State state;
     /**
      * Creates an empty list of store orders.
      */
     public StoreOrders() {
-        orders = new ArrayList<>();
+        index = new ConcurrentHashMap<>();
+        writeLock = new ReentrantLock();
+        columns = new ItemColumns();
+        listeners = new CopyOnWriteArrayList<>();
+        state = new State(0, 0, 0, 0, new Entry[1][]);
     }
 
     /**
-     * Adds an order to the store order list.
+     * Adds an order to the store order list, records when it was placed, and
+     * freezes it so it can no longer be changed. An order whose number is
+     * already present is ignored.
      *
      * @param order the order to add
+     * @return true if the order was added
+     */
+    public boolean addOrder(Order order) {
+        if (order == null) return false;
+        long start = System.nanoTime();
+        writeLock.lock();
+        try {
+            Integer number = order.getOrderNumber();
+            if (index.containsKey(number)) return false;
+            State s = state;
+            Entry[][] chunks = append(s.chunks, s.logSize, order, System.currentTimeMillis());
+            state = new State(s.version + 1, s.logSize + 1, s.live + 1, s.cancelled, chunks);
+            for (Listener l : listeners) l.orderAdded(order);
+            PLACED.increment();
+            return true;
+        } finally {
+            writeLock.unlock();
+            PLACE_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * Adds many orders at once, as {@link #addOrder(Order)} would one by
+     * one, but under a single hold of the write lock and publishing the new
+     * state once. Listeners are told of the whole batch in one
+     * {@link Listener#ordersAdded(List)} call. Orders whose number is
+     * already present, and nulls, are skipped.
+     *
+     * @param orders the orders to add, in placement order
+     * @return the number of orders added
+     */
+    public int addOrders(Collection<Order> orders) {
+        long start = System.nanoTime();
+        List<Order> added = new ArrayList<>(orders.size());
+        writeLock.lock();
+        try {
+            State s = state;
+            Entry[][] chunks = s.chunks;
+            int slot = s.logSize;
+            long now = System.currentTimeMillis();
+            for (Order order : orders) {
+                if (order == null || index.containsKey(order.getOrderNumber())) continue;
+                chunks = append(chunks, slot++, order, now);
+                added.add(order);
+            }
+            if (added.isEmpty()) return 0;
+            state = new State(s.version + 1, slot, s.live + added.size(), s.cancelled, chunks);
+            List<Order> batch = Collections.unmodifiableList(added);
+            for (Listener l : listeners) l.ordersAdded(batch);
+            PLACED.add(added.size());
+            return added.size();
+        } finally {
+            writeLock.unlock();
+            PLACE_BATCH_TIME.recordSince(start);
+        }
+    }
+
+    /**
+     * Records when an order was placed, freezes it, writes it to a slot of
+     * the log and indexes it. The caller publishes the new state.
+     * Must be called while holding {@link #writeLock}.
+     *
+     * @param chunks the log's chunks
+     * @param slot   the first free slot
+     * @param order  the order, not yet in the index
+     * @param now    the placement time in epoch milliseconds
+     * @return the log's chunks, grown if the slot was past their end
+     */
+    private Entry[][] append(Entry[][] chunks, int slot, Order order, long now) {
+        int chunk = slot >>> CHUNK_BITS;
+        if (chunk == chunks.length) {
+            Entry[][] grown = new Entry[chunks.length * 2][];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            chunks = grown;
+        }
+        if (chunks[chunk] == null) chunks[chunk] = new Entry[CHUNK_SIZE];
+        order.markPlaced(now);
+        order.freeze(columns);
+        Entry e = new Entry(order);
+        chunks[chunk][slot & (CHUNK_SIZE - 1)] = e;
+        index.put(order.getOrderNumber(), e);
+        return chunks;
+    }
+
+    /**
+     * Looks up a placed order by its order number.
+     *
+     * @param orderNumber the order number to look up
+     * @return the order, or null if no such order has been placed
+     */
+    public Order findByNumber(int orderNumber) {
+        Entry e = index.get(orderNumber);
+        return e == null ? null : e.order;
+    }
+
+    /**
+     * Cancels (removes) the order with the given order number.
+     *
+     * @param orderNumber the number of the order to cancel
+     * @return the cancelled order, or null if no such order was placed
      */
-    public void addOrder(Order order) {
-        if (order != null && !orders.contains(order)) {
-            orders.add(order);
+    public Order cancelByNumber(int orderNumber) {
+        writeLock.lock();
+        try {
+            Entry e = index.remove(orderNumber);
+            if (e == null) return null;
+            cancel(e);
+            return e.order;
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -33,16 +213,194 @@ public class StoreOrders {
      * @param order the order to remove
      */
     public void removeOrder(Order order) {
-        orders.remove(order);
+        if (order == null) return;
+        writeLock.lock();
+        try {
+            Entry e = index.get(order.getOrderNumber());
+            if (e != null && e.order == order) {
+                index.remove(order.getOrderNumber());
+                cancel(e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every order at once, as at the close of a business day, and
+     * tells the listeners in one {@link Listener#ordersCleared(Collection)}
+     * call. Snapshots taken earlier, and the orders themselves, are
+     * unaffected.
+     *
+     * @return read-only snapshot of the orders removed
+     */
+    public Collection<Order> clear() {
+        writeLock.lock();
+        try {
+            return clearLocked();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every order, as {@link #clear()} does, but only if no order has
+     * been placed or cancelled since {@code snapshot} was taken, so orders
+     * that were just saved elsewhere can be dropped without losing any that
+     * arrived in the meantime.
+     *
+     * @param snapshot a snapshot returned by {@link #getOrders()}
+     * @return true if the orders were removed, false if the store had changed
+     */
+    public boolean clearIfUnchanged(Collection<Order> snapshot) {
+        writeLock.lock();
+        try {
+            if (!(snapshot instanceof Snapshot s) || s.state != state) return false;
+            clearLocked();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every order and tells the listeners.
+     * Must be called while holding {@link #writeLock}.
+     *
+     * @return snapshot of the orders removed
+     */
+    private Collection<Order> clearLocked() {
+        Collection<Order> removed = getOrders();
+        State s = state;
+        index.clear();
+        columns = new ItemColumns(); // the removed orders keep the old columns
+        state = new State(s.version + 1, 0, 0, 0, new Entry[1][]);
+        CANCELLED.add(removed.size());
+        for (Listener l : listeners) l.ordersCleared(removed);
+        return removed;
+    }
+
+    /**
+     * Marks a log entry cancelled, publishes the new state, and tells the
+     * listeners. Once more than half the log is cancelled entries, the log
+     * is rewritten without them.
+     * Must be called while holding {@link #writeLock}.
+     *
+     * @param e the entry to cancel
+     */
+    private void cancel(Entry e) {
+        State s = state;
+        long version = s.version + 1;
+        e.cancelledAt = version;
+        CANCELLED.increment();
+        int cancelled = s.cancelled + 1;
+        if (cancelled > CHUNK_SIZE && cancelled > s.live) {
+            state = compact(s, version);
+        } else {
+            state = new State(version, s.logSize, s.live - 1, cancelled, s.chunks);
+        }
+        for (Listener l : listeners) l.orderRemoved(e.order);
+    }
+
+    /**
+     * Copies the live entries of a state into a fresh log. Snapshots taken
+     * earlier keep the old log, so they are unaffected.
+     *
+     * @param s       the current state
+     * @param version the version to publish
+     * @return the compacted state
+     */
+    private static State compact(State s, long version) {
+        int live = s.live - 1;
+        Entry[][] chunks = new Entry[(live >>> CHUNK_BITS) + 1][];
+        int slot = 0;
+        for (int i = 0; i < s.logSize; i++) {
+            Entry e = s.entry(i);
+            if (e.cancelledAt <= version) continue;
+            int chunk = slot >>> CHUNK_BITS;
+            if (chunks[chunk] == null) chunks[chunk] = new Entry[CHUNK_SIZE];
+            chunks[chunk][slot & (CHUNK_SIZE - 1)] = e;
+            slot++;
+        }
+        return new State(version, slot, live, 0, chunks);
+    }
+
+    /**
+     * Registers a listener for orders placed and cancelled from now on, and
+     * returns the orders placed so far. Both happen atomically, so every
+     * order is either in the returned snapshot or reported to the listener
+     * as added, never both or neither.
+     *
+     * @param listener the listener to add
+     * @return read-only snapshot of the orders placed before registering
+     */
+    public Collection<Order> addListener(Listener listener) {
+        writeLock.lock();
+        try {
+            listeners.add(listener);
+            return getOrders();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Subscribes to orders placed and cancelled from now on through an event
+     * bus, which delivers them in batches and holds the subscriber weakly,
+     * and returns the orders placed so far. As with
+     * {@link #addListener(Listener)}, every order is either in the snapshot
+     * or reported as placed, never both or neither. The subscription ends
+     * when the subscriber is garbage collected.
+     *
+     * @param bus        the bus to deliver through
+     * @param subscriber the subscriber, held weakly
+     * @param handler    receives the subscriber and each batch of changes
+     * @param <S>        subscriber type
+     * @return read-only snapshot of the orders placed before subscribing
+     */
+    public <S> Collection<Order> subscribe(EventBus bus, S subscriber,
+                                           BiConsumer<? super S, ? super List<Change>> handler) {
+        EventBus.Sink<Change> sink = bus.subscribe(subscriber, handler);
+        return addListener(new Listener() {
+            @Override
+            public void orderAdded(Order order) {
+                if (!sink.post(new Change(order, true))) removeListener(this);
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+                if (!sink.post(new Change(order, false))) removeListener(this);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of placed orders.
+     *
+     * @return number of orders
+     */
+    public int size() {
+        return state.live;
     }
 
     /**
-     * Returns all store orders.
+     * Returns a snapshot of all store orders in the order they were placed.
+     * The snapshot is taken without locking and does not change afterwards,
+     * even if orders are placed or cancelled while it is being read.
      *
-     * @return list of orders
+     * @return read-only snapshot of the orders
      */
-    public ArrayList<Order> getOrders() {
-        return orders;
+    public Collection<Order> getOrders() {
+        return new Snapshot(state);
     }
 
     /**
@@ -53,7 +411,7 @@ public class StoreOrders {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Order order : orders) {
+        for (Order order : getOrders()) {
             sb.append(order.toString()).append("\n");
         }
         return sb.toString();
@@ -66,21 +424,255 @@ public class StoreOrders {
      * @return formatted text for exporting
      */
     public String export() {
-        StringBuilder sb = new StringBuilder();
+        StringWriter out = new StringWriter();
+        try {
+            exportTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return out.toString();
+    }
+
+    /**
+     * Streams the export text for all orders to the given writer, one order
+     * at a time. Each order is formatted into a single reusable buffer and
+     * handed to the writer before the next one, so memory use does not grow
+     * with the number of orders. The output is identical to {@link #export()}.
+     * The writer is flushed but not closed.
+     *
+     * @param out destination for the export text
+     * @throws IOException if writing fails
+     */
+    public void exportTo(Writer out) throws IOException {
+        exportTo(out, getOrders(), null);
+    }
+
+    /**
+     * Exports a snapshot of all orders to a file, replacing it only once the
+     * whole export has been written. The text goes to a temporary file next
+     * to {@code file}, which is then moved over it (atomically where the file
+     * system allows), so a failed or cancelled export leaves any previous
+     * file untouched.
+     * <p>
+     * This may take a while for a busy day and is meant to run off the
+     * JavaFX thread. Interrupting the calling thread stops the export with an
+     * {@link InterruptedIOException}.
+     * </p>
+     *
+     * @param file     the export file to write
+     * @param progress told of progress after each order, or null
+     * @return the number of orders exported
+     * @throws IOException if writing fails or the thread is interrupted
+     */
+    public int exportTo(Path file, ExportProgress progress) throws IOException {
+        Collection<Order> orders = getOrders();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                exportTo(out, orders, progress);
+            }
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("export cancelled");
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return orders.size();
+    }
+
+    /**
+     * Writes the export text for the given orders, one order at a time.
+     * Each order is formatted into a single reusable buffer and handed to
+     * the writer before the next one.
+     *
+     * @param out      destination for the export text
+     * @param orders   the orders to export
+     * @param progress told of progress after each order, or null; when set,
+     *                 the export also stops if the thread is interrupted
+     * @throws IOException if writing fails or the thread is interrupted
+     */
+    private static void exportTo(Writer out, Collection<Order> orders, ExportProgress progress) throws IOException {
+        long start = System.nanoTime();
+        StringBuilder sb = new StringBuilder(256);
+        char[] chars = new char[256];
+        int total = orders.size();
+        int written = 0;
         for (Order order : orders) {
-            sb.append("Order #").append(order.getOrderNumber()).append("\n");
-            sb.append("Items:\n");
-            
-            // List all menu items in the order
-            for (var item : order.getItems()) {
-                sb.append("  • ").append(item.toString()).append("\n");
+            sb.setLength(0);
+            appendExport(sb, order);
+            int len = sb.length();
+            if (len > chars.length) chars = new char[Math.max(len, chars.length * 2)];
+            sb.getChars(0, len, chars, 0);
+            out.write(chars, 0, len);
+            if (progress != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("export cancelled after " + written + " orders");
+                }
+                progress.written(++written, total);
             }
-            
-            sb.append("Subtotal: $").append(String.format("%.2f", order.getSubtotal())).append("\n");
-            sb.append("Tax: $").append(String.format("%.2f", order.getTax())).append("\n");
-            sb.append("Total: $").append(String.format("%.2f", order.getTotal())).append("\n");
-            sb.append("\n");
         }
-        return sb.toString();
+        out.flush();
+        EXPORT_TIME.recordSince(start);
+    }
+
+    /**
+     * Appends the export block for a single order.
+     *
+     * @param sb    buffer to append to
+     * @param order order to describe
+     */
+    private static void appendExport(StringBuilder sb, Order order) {
+        sb.append("Order #").append(order.getOrderNumber()).append("\n");
+        sb.append("Items:\n");
+
+        // List all menu items in the order
+        for (var item : order.getItems()) {
+            sb.append("  • ").append(item.toString()).append("\n");
+        }
+
+        Money.append(sb.append("Subtotal: $"), order.getSubtotalCents()).append("\n");
+        Money.append(sb.append("Tax: $"), order.getTaxCents()).append("\n");
+        Money.append(sb.append("Total: $"), order.getTotalCents()).append("\n");
+        sb.append("\n");
+    }
+
+    /**
+     * An order placed in or cancelled from a StoreOrders, as delivered by
+     * {@link #subscribe subscribe}.
+     *
+     * @param order  the order
+     * @param placed true if it was placed, false if it was cancelled
+     */
+    public record Change(Order order, boolean placed) {
+    }
+
+    /** Told of the progress of {@link #exportTo(Path, ExportProgress)}. */
+    public interface ExportProgress {
+        /**
+         * Called on the exporting thread after each order is written.
+         *
+         * @param written orders written so far
+         * @param total   orders being exported
+         */
+        void written(int written, int total);
+    }
+
+    /**
+     * Told of each order placed in or cancelled from a StoreOrders. Listeners
+     * are called on the thread making the change, in the order the changes
+     * happen, while the store's write lock is held; they must return quickly
+     * and must not change the store.
+     */
+    public interface Listener {
+        /**
+         * Called after an order has been placed.
+         *
+         * @param order the placed order
+         */
+        void orderAdded(Order order);
+
+        /**
+         * Called after a batch of orders has been placed by
+         * {@link #addOrders(Collection)}. By default this calls
+         * {@link #orderAdded(Order)} for each one.
+         *
+         * @param orders the placed orders, in placement order
+         */
+        default void ordersAdded(List<Order> orders) {
+            for (Order order : orders) orderAdded(order);
+        }
+
+        /**
+         * Called after an order has been cancelled or removed.
+         *
+         * @param order the cancelled order
+         */
+        void orderRemoved(Order order);
+
+        /**
+         * Called after {@link #clear()} has removed every order. By default
+         * this calls {@link #orderRemoved(Order)} for each one.
+         *
+         * @param orders the removed orders, in placement order
+         */
+        default void ordersCleared(Collection<Order> orders) {
+            for (Order order : orders) orderRemoved(order);
+        }
+    }
+
+    /** A placed order and the version at which it was cancelled, if any. */
+    private static final class Entry {
+        final Order order;
+        volatile long cancelledAt = Long.MAX_VALUE;
+
+        Entry(Order order) {
+            this.order = order;
+        }
+    }
+
+    /**
+     * An immutable view of the log: entries in slots {@code [0, logSize)}
+     * that were not cancelled at or before {@code version}.
+     */
+    private static final class State {
+        final long version;
+        final int logSize;
+        final int live;
+        final int cancelled;
+        final Entry[][] chunks;
+
+        State(long version, int logSize, int live, int cancelled, Entry[][] chunks) {
+            this.version = version;
+            this.logSize = logSize;
+            this.live = live;
+            this.cancelled = cancelled;
+            this.chunks = chunks;
+        }
+
+        Entry entry(int slot) {
+            return chunks[slot >>> CHUNK_BITS][slot & (CHUNK_SIZE - 1)];
+        }
+    }
+
+    /** The orders visible in one {@link State}. */
+    private static final class Snapshot extends AbstractCollection<Order> {
+        private final State state;
+
+        Snapshot(State state) {
+            this.state = state;
+        }
+
+        @Override
+        public int size() {
+            return state.live;
+        }
+
+        @Override
+        public Iterator<Order> iterator() {
+            return new Iterator<>() {
+                private int slot = advance(0);
+
+                private int advance(int from) {
+                    while (from < state.logSize && state.entry(from).cancelledAt <= state.version) from++;
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return slot < state.logSize;
+                }
+
+                @Override
+                public Order next() {
+                    if (slot >= state.logSize) throw new NoSuchElementException();
+                    Order o = state.entry(slot).order;
+                    slot = advance(slot + 1);
+                    return o;
+                }
+            };
+        }
     }
 }
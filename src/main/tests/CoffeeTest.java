@@ -4,7 +4,14 @@ import main.enums.CupSize;
 import main.enums.AddIns;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 /**
  * Unit tests for the Coffee price calculation.
  */
@@ -53,4 +60,48 @@ public class CoffeeTest {
 
         assertEquals(expected, actual, 0.01);
     }
+
+    @Test
+    public void testPriceTableMatchesFormulaForEveryCombination() {
+        // Every size x every subset of add-ins x a few quantities:
+        // (2.39 + 0.60 * size steps + 0.25 * add-ins) * quantity
+        AddIns[] all = AddIns.values();
+        for (CupSize size : CupSize.values()) {
+            for (int mask = 0; mask < 1 << all.length; mask++) {
+                for (int qty = 1; qty <= 3; qty++) {
+                    Coffee c = new Coffee(size, qty);
+                    for (AddIns a : all) {
+                        if ((mask & 1 << a.ordinal()) != 0) c.addAddIn(a);
+                    }
+                    long expected = (239 + 60L * size.ordinal() + 25L * Integer.bitCount(mask)) * qty;
+                    assertEquals(expected, c.priceCents(), size + " mask " + mask + " x" + qty);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPriceFollowsRemovedAddIn() {
+        Coffee c = new Coffee(CupSize.TALL, 1);
+        c.addAddIn(AddIns.MILK);
+        c.addAddIn(AddIns.MOCHA);
+        c.removeAddIn(AddIns.MILK);
+
+        assertEquals(299 + 25, c.priceCents());
+    }
+
+    @Test
+    public void testAddInsViewIsReadOnlyAndLive() {
+        Coffee c = new Coffee(CupSize.SHORT, 1);
+        Set<AddIns> view = c.getAddIns();
+        c.addAddIn(AddIns.MOCHA);
+        c.addAddIn(AddIns.VANILLA);
+
+        assertFalse(c.addAddIn(AddIns.MOCHA));
+        assertEquals(2, view.size());
+        assertTrue(view.contains(AddIns.MOCHA));
+        assertFalse(view.contains(AddIns.MILK));
+        assertEquals(List.of(AddIns.VANILLA, AddIns.MOCHA), new ArrayList<>(view));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(AddIns.MILK));
+    }
 }
@@ -0,0 +1,132 @@
+package main.tests;
+
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.EventBus;
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for EventBus batching and weak subscriptions, and the model's
+ * subscribe methods built on it.
+ */
+public class EventBusTest {
+
+    /** Stands in for the JavaFX thread: deliveries run when the test says so. */
+    private final Queue<Runnable> fxThread = new ArrayDeque<>();
+    private final EventBus bus = new EventBus(fxThread::add);
+
+    /** A subscriber that records the batches it is given. */
+    private static final class View {
+        final List<List<?>> batches = new ArrayList<>();
+
+        void changed(List<?> batch) {
+            batches.add(batch);
+        }
+    }
+
+    private void runFxThread() {
+        for (Runnable r; (r = fxThread.poll()) != null; ) r.run();
+    }
+
+    @Test
+    public void testBurstIsDeliveredAsOneBatch() {
+        View view = new View();
+        EventBus.Sink<Integer> sink = bus.subscribe(view, View::changed);
+        for (int i = 0; i < 1000; i++) assertTrue(sink.post(i));
+        assertEquals(1, fxThread.size());
+
+        runFxThread();
+        assertEquals(1, view.batches.size());
+        assertEquals(1000, view.batches.get(0).size());
+        assertEquals(999, view.batches.get(0).get(999));
+
+        sink.post(1000);
+        sink.close();
+        assertFalse(sink.post(1001));
+        runFxThread();
+        assertEquals(1, view.batches.size());
+    }
+
+    @Test
+    public void testCollectedSubscriberIsDropped() throws InterruptedException {
+        EventBus.Sink<Integer> sink = bus.subscribe(new View(), View::changed);
+        for (int i = 0; i < 100 && sink.isOpen(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertFalse(sink.isOpen());
+        assertFalse(sink.post(1));
+        assertTrue(fxThread.isEmpty());
+    }
+
+    @Test
+    public void testStoreSubscriptionSeesSnapshotThenBatches() throws InterruptedException {
+        StoreOrders store = new StoreOrders();
+        Order first = order();
+        store.addOrder(first);
+
+        View view = new View();
+        assertEquals(List.of(first), new ArrayList<>(store.subscribe(bus, view, View::changed)));
+        Order second = order();
+        Order third = order();
+        store.addOrder(second);
+        store.addOrder(third);
+        store.cancelByNumber(first.getOrderNumber());
+        runFxThread();
+        assertEquals(List.of(List.of(new StoreOrders.Change(second, true), new StoreOrders.Change(third, true),
+                new StoreOrders.Change(first, false))), view.batches);
+
+        // Once the view is gone, the store stops posting for it
+        view = null;
+        EventBus.Sink<Integer> probe = bus.subscribe(new View(), View::changed);
+        for (int i = 0; i < 100 && probe.isOpen(); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        store.addOrder(order());
+        store.addOrder(order());
+        assertTrue(fxThread.isEmpty());
+    }
+
+    @Test
+    public void testOrderSubscriptionBatchesItemChanges() {
+        Order o = new Order();
+        View view = new View();
+        EventBus.Sink<Order.Change> sink = o.subscribe(bus, view, View::changed);
+        Coffee coffee = new Coffee(CupSize.SHORT, 1);
+        Donut donut = new Donut(DonutCategory.CAKE, "Jelly", 2);
+        o.addItem(coffee);
+        o.addItem(donut);
+        o.removeItem(coffee);
+        o.clear();
+        runFxThread();
+        assertEquals(List.of(List.of(
+                new Order.Change(Order.Change.Type.ADDED, 0, coffee),
+                new Order.Change(Order.Change.Type.ADDED, 1, donut),
+                new Order.Change(Order.Change.Type.REMOVED, 0, coffee),
+                new Order.Change(Order.Change.Type.CLEARED, -1, null))), view.batches);
+
+        sink.close();
+        o.addItem(coffee);
+        assertTrue(fxThread.isEmpty());
+    }
+
+    private static Order order() {
+        Order o = new Order(OrderNumbers.reserve(1));
+        o.addItem(new Coffee(CupSize.TALL, 1));
+        return o;
+    }
+}
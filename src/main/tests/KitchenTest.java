@@ -0,0 +1,179 @@
+package main.tests;
+
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Kitchen;
+import main.model.MenuItem;
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.Sandwich;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for the kitchen's per-station queues, prep-time scheduling and
+ * backpressure.
+ */
+public class KitchenTest {
+
+    @Test
+    public void testTicketsArePlannedToFinishTogether() {
+        Kitchen kitchen = new Kitchen();
+        Coffee coffee = new Coffee(CupSize.GRANDE, 1);
+        Donut donut = new Donut(DonutCategory.YEAST, "Glazed", 6);
+        Sandwich sandwich = new Sandwich(Bread.BAGEL, Protein.CHICKEN, 1);
+        assertTrue(kitchen.trySubmit(order(coffee, donut, sandwich)));
+
+        // The grill has the longest job, so it starts now and the others wait to finish with it
+        Kitchen.Ticket grill = kitchen.poll(Kitchen.Station.GRILL);
+        assertEquals(List.of(sandwich), grill.getItems());
+        assertTrue(grill.isStarted());
+        assertNull(kitchen.poll(Kitchen.Station.BAR));
+        assertNull(kitchen.poll(Kitchen.Station.CASE));
+
+        Kitchen.Ticket bar = kitchen.tickets(Kitchen.Station.BAR).get(0);
+        long grillMillis = Kitchen.Station.GRILL.prepMillis(sandwich);
+        long barMillis = Kitchen.Station.BAR.prepMillis(coffee);
+        assertEquals(grillMillis - barMillis, bar.getDelay(TimeUnit.MILLISECONDS), 1_000);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(grillMillis), grill.getPrepNanos());
+        assertEquals(1, kitchen.depth(Kitchen.Station.CASE));
+
+        kitchen.done(grill);
+        assertTrue(grill.isDone());
+        assertEquals(0, kitchen.depth(Kitchen.Station.GRILL));
+        assertThrows(IllegalStateException.class, () -> kitchen.done(grill));
+    }
+
+    @Test
+    public void testFullStationTurnsWholeOrdersAway() throws InterruptedException {
+        Kitchen kitchen = new Kitchen(2, Map.of(), 1);
+        assertTrue(kitchen.trySubmit(order(new Coffee(CupSize.SHORT, 1))));
+        assertTrue(kitchen.trySubmit(order(new Coffee(CupSize.TALL, 1))));
+
+        // The bar is full, so the donuts of a mixed order are not queued either
+        assertFalse(kitchen.trySubmit(order(new Donut(DonutCategory.CAKE, "Jelly", 2), new Coffee(CupSize.SHORT, 1))));
+        assertEquals(0, kitchen.depth(Kitchen.Station.CASE));
+        assertFalse(kitchen.submit(order(new Coffee(CupSize.SHORT, 1)), 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, kitchen.depth(Kitchen.Station.BAR));
+
+        // The second coffee is planned to start after the first, behind the bar's backlog
+        Kitchen.Ticket first = kitchen.poll(Kitchen.Station.BAR);
+        assertSame(CupSize.SHORT, ((Coffee) first.getItems().get(0)).getSize());
+        assertNull(kitchen.poll(Kitchen.Station.BAR));
+        kitchen.done(first);
+        assertTrue(kitchen.trySubmit(order(new Donut(DonutCategory.CAKE, "Jelly", 2), new Coffee(CupSize.SHORT, 1))));
+        assertEquals(1, kitchen.depth(Kitchen.Station.CASE));
+    }
+
+    @Test
+    public void testRegisterOrdersAreQueuedPastCapacity() {
+        Kitchen kitchen = new Kitchen(1, Map.of(), 1);
+        assertEquals(Set.of(), kitchen.enqueue(order(new Coffee(CupSize.SHORT, 1))));
+        assertEquals(Set.of(Kitchen.Station.BAR),
+                kitchen.enqueue(order(new Coffee(CupSize.TALL, 1), new Donut(DonutCategory.CAKE, "Jelly", 1))));
+        assertEquals(2, kitchen.depth(Kitchen.Station.BAR));
+        assertEquals(2, kitchen.tickets(Kitchen.Station.BAR).size());
+        assertFalse(kitchen.trySubmit(order(new Coffee(CupSize.SHORT, 1))));
+
+        // The bar has room again only once it is back under capacity
+        Kitchen.Ticket first = kitchen.poll(Kitchen.Station.BAR);
+        kitchen.done(first);
+        assertEquals(1, kitchen.depth(Kitchen.Station.BAR));
+        assertFalse(kitchen.trySubmit(order(new Coffee(CupSize.SHORT, 1))));
+        kitchen.cancel(kitchen.tickets(Kitchen.Station.BAR).get(0).getOrderNumber());
+        assertTrue(kitchen.trySubmit(order(new Coffee(CupSize.SHORT, 1))));
+    }
+
+    @Test
+    public void testCancellingAnOrderFreesItsWaitingTickets() {
+        Kitchen kitchen = new Kitchen(1, Map.of(), 1);
+        Order first = order(new Sandwich(Bread.WHEAT, Protein.BEEF, 1), new Coffee(CupSize.SHORT, 1));
+        assertTrue(kitchen.trySubmit(first));
+        assertFalse(kitchen.trySubmit(order(new Coffee(CupSize.TALL, 1))));
+
+        // The sandwich is started, so only the coffee still waiting is taken back
+        Kitchen.Ticket grill = kitchen.poll(Kitchen.Station.GRILL);
+        assertEquals(1, kitchen.cancel(first.getOrderNumber()));
+        assertEquals(0, kitchen.depth(Kitchen.Station.BAR));
+        assertTrue(kitchen.tickets(Kitchen.Station.BAR).isEmpty());
+        assertEquals(List.of(grill), kitchen.tickets(Kitchen.Station.GRILL));
+        assertTrue(kitchen.trySubmit(order(new Coffee(CupSize.TALL, 1))));
+        assertEquals(0, kitchen.cancel(first.getOrderNumber()));
+        assertEquals(0, kitchen.orderTimes().getCount());
+        kitchen.done(grill);
+        // The order is finished once its last ticket is done, counting the cancelled coffee out
+        assertEquals(1, kitchen.orderTimes().getCount());
+        assertEquals(0, kitchen.finishSpread().percentileNanos(1));
+
+        // Cancelling the last ticket still waiting finishes an order too
+        Order second = order(new Sandwich(Bread.WHEAT, Protein.BEEF, 1), new Coffee(CupSize.SHORT, 1));
+        Kitchen roomy = new Kitchen();
+        assertTrue(roomy.trySubmit(second));
+        roomy.done(roomy.poll(Kitchen.Station.GRILL));
+        assertEquals(0, roomy.orderTimes().getCount());
+        assertEquals(1, roomy.cancel(second.getOrderNumber()));
+        assertEquals(1, roomy.orderTimes().getCount());
+    }
+
+    @Test
+    public void testCooksWorkThroughAPeak() throws InterruptedException {
+        // 10,000 times real time: a sandwich takes about 15 ms
+        Kitchen kitchen = new Kitchen(5, Map.of(), 10_000);
+        List<Thread> cooks = new ArrayList<>();
+        for (Kitchen.Station station : Kitchen.Station.values()) {
+            for (int i = 0; i < station.getDefaultCooks(); i++) {
+                Thread cook = new Thread(() -> {
+                    try {
+                        while (true) {
+                            Kitchen.Ticket t = kitchen.take(station);
+                            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(t.getPrepNanos()));
+                            kitchen.done(t);
+                        }
+                    } catch (InterruptedException e) {
+                        // end of shift
+                    }
+                });
+                cooks.add(cook);
+                cook.start();
+            }
+        }
+        int orders = 60;
+        for (int i = 0; i < orders; i++) {
+            Order o = i % 3 == 0
+                    ? order(new Sandwich(Bread.WHEAT, Protein.BEEF, 1), new Coffee(CupSize.VENTI, 2))
+                    : order(new Donut(DonutCategory.HOLE, "Powdered", 12), new Coffee(CupSize.SHORT, 1));
+            assertTrue(kitchen.submit(o, 10, TimeUnit.SECONDS), "order " + i);
+        }
+        for (int i = 0; i < 500 && kitchen.orderTimes().getCount() < orders; i++) Thread.sleep(10);
+        for (Thread cook : cooks) cook.interrupt();
+        for (Thread cook : cooks) cook.join();
+
+        assertEquals(orders, kitchen.orderTimes().getCount());
+        assertEquals(0, new Kitchen().orderTimes().getCount()); // each kitchen keeps its own numbers
+        for (Kitchen.Station station : Kitchen.Station.values()) {
+            assertEquals(0, kitchen.depth(station));
+            assertTrue(kitchen.tickets(station).isEmpty());
+        }
+    }
+
+    private static Order order(MenuItem... items) {
+        Order o = new Order(OrderNumbers.reserve(1));
+        for (MenuItem item : items) o.addItem(item);
+        return o;
+    }
+}
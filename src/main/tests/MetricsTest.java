@@ -0,0 +1,124 @@
+package main.tests;
+
+import main.metrics.Counter;
+import main.metrics.Histogram;
+import main.metrics.Metrics;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for the metrics registry, counters, histograms and gauges.
+ */
+public class MetricsTest {
+
+    @Test
+    public void testHistogramPercentilesAreWithinBucketPrecision() {
+        Histogram h = Metrics.histogram("test.percentiles");
+        h.reset();
+        for (long micros = 1; micros <= 10_000; micros++) h.record(micros * 1_000);
+
+        assertEquals(10_000, h.getCount());
+        assertEquals(5.0005, h.getMeanMillis(), 1e-9);
+        assertEquals(10.0, h.getMaxMillis(), 1e-9);
+        assertEquals(5.0, h.getP50Millis(), 5.0 / 8);
+        assertEquals(9.0, h.getP90Millis(), 9.0 / 8);
+        assertEquals(9.9, h.getP99Millis(), 9.9 / 8);
+        assertEquals(0.001, h.percentileNanos(0) / 1e6, 0.001 / 8);
+        assertThrows(IllegalArgumentException.class, () -> h.percentileNanos(1.5));
+
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.percentileNanos(0.99));
+    }
+
+    @Test
+    public void testRecordingFromManyThreads() throws Exception {
+        Counter c = Metrics.counter("test.threads");
+        Histogram h = Metrics.histogram("test.threads");
+        c.reset();
+        h.reset();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    c.increment();
+                    h.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(400_000, c.getCount());
+        assertEquals(400_000, h.getCount());
+        assertEquals(99_999 / 1e6, h.getMaxMillis(), 1e-12);
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Counter c = Metrics.counter("test.alloc");
+        Histogram h = Metrics.histogram("test.alloc");
+        for (int i = 0; i < 20; i++) record(c, h); // warm up, so the measured call runs compiled code
+        long before = threads.getCurrentThreadAllocatedBytes();
+        record(c, h);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1_000, "recording allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Records 100,000 times. Kept out of the test method so the JIT compiles
+     * it whole instead of swapping the test's loop in and out of compiled
+     * code, which can itself allocate.
+     */
+    private static void record(Counter c, Histogram h) {
+        for (int i = 0; i < 100_000; i++) {
+            c.increment();
+            h.recordSince(System.nanoTime() - i);
+        }
+    }
+
+    @Test
+    public void testMetricsAreRegisteredOverJmxAndDumped() throws Exception {
+        Histogram before = Metrics.histogram("test.jmx.before");
+        before.record(2_000_000);
+        Metrics.registerMBeans();
+        Counter after = Metrics.counter("test.jmx.after");
+        after.add(3);
+        assertSame(after, Metrics.counter("test.jmx.after"));
+        Metrics.gauge("test.jmx.gauge", () -> 7);
+        Metrics.gauge("test.jmx.gauge", () -> 42);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName h = new ObjectName(Metrics.DOMAIN + ":type=Histogram,name=\"test.jmx.before\"");
+        ObjectName c = new ObjectName(Metrics.DOMAIN + ":type=Counter,name=\"test.jmx.after\"");
+        assertEquals(1L, server.getAttribute(h, "Count"));
+        assertEquals(2.0, (double) server.getAttribute(h, "MaxMillis"), 1e-9);
+        assertEquals(3L, server.getAttribute(c, "Count"));
+        ObjectName g = new ObjectName(Metrics.DOMAIN + ":type=Gauge,name=\"test.jmx.gauge\"");
+        assertEquals(42L, server.getAttribute(g, "Value"));
+
+        Path file = Files.createTempFile("metrics", ".txt");
+        try {
+            Metrics.dump(file);
+            String text = Files.readString(file);
+            assertTrue(text.contains("test.jmx.after count=3\n"), text);
+            assertTrue(text.contains("test.jmx.before count=1 "), text);
+            assertTrue(text.contains("test.jmx.gauge value=42\n"), text);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package main.tests;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Order;
+import main.model.OrderArchive;
+import main.model.OrderNumbers;
+import main.model.Sandwich;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+/**
+ * Tests for writing and searching the binary order archive.
+ */
+public class OrderArchiveTest {
+
+    @Test
+    public void testArchivedOrdersCanBeFoundByNumber() throws Exception {
+        Path file = Files.createTempFile("orders", ".archive");
+        try {
+            StoreOrders store = new StoreOrders();
+            // Number from two interleaved blocks so numbers are not in placement order
+            OrderNumbers.Block even = OrderNumbers.reserve(7);
+            OrderNumbers.Block odd = OrderNumbers.reserve(5);
+            for (int i = 0; i < 10_000; i++) {
+                Order o = new Order(i % 2 == 0 ? even : odd);
+                o.addItem(new Donut(DonutCategory.values()[i % 4], i % 3 == 0 ? "Jelly" : "Glazed", 1 + i % 12));
+                Coffee c = new Coffee(CupSize.values()[i % 4], 1 + i % 2);
+                if (i % 5 == 0) c.addAddIn(AddIns.CARAMEL);
+                o.addItem(c);
+                if (i % 7 == 0) {
+                    Sandwich s = new Sandwich(Bread.SOURDOUGH, Protein.values()[i % 3], 2);
+                    s.addAddOn(AddOns.TOMATOES);
+                    o.addItem(s);
+                }
+                store.addOrder(o);
+            }
+
+            OrderArchive.write(file, store.getOrders());
+
+            StoreOrders reloaded = new StoreOrders();
+            try (OrderArchive archive = OrderArchive.open(file)) {
+                assertEquals(store.size(), archive.size());
+                for (Order o : store.getOrders()) {
+                    int slot = archive.find(o.getOrderNumber());
+                    assertEquals(o.getOrderNumber(), archive.orderNumberAt(slot));
+                    assertEquals(o.getTotalCents(), archive.totalCentsAt(slot));
+                    assertEquals(o.getPlacedAt(), archive.placedAtAt(slot));
+                    assertEquals(o.getItems().size(), archive.itemCountAt(slot));
+                    reloaded.addOrder(archive.load(slot));
+                }
+                assertEquals(-1, archive.find(1));
+                assertNull(archive.findByNumber(Integer.MAX_VALUE));
+            }
+            assertEquals(store.export(), reloaded.export());
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(OrderArchive.indexFile(file));
+        }
+    }
+
+    @Test
+    public void testEmptyArchive() throws Exception {
+        Path file = Files.createTempFile("orders", ".archive");
+        try {
+            OrderArchive.write(file, new StoreOrders().getOrders());
+            try (OrderArchive archive = OrderArchive.open(file)) {
+                assertEquals(0, archive.size());
+                assertEquals(-1, archive.find(OrderNumbers.FIRST));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(OrderArchive.indexFile(file));
+        }
+    }
+}
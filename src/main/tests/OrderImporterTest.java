@@ -0,0 +1,151 @@
+package main.tests;
+
+import main.intake.OrderImporter;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Order;
+import main.model.OrderJournal;
+import main.model.Sandwich;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for the bulk order importer, including a large chunked import.
+ */
+public class OrderImporterTest {
+
+    @Test
+    public void testImportsCsvAndSkipsInvalidOrders() throws Exception {
+        String csv = """
+                order,type,kind,variant,quantity,extras
+                A1,donut,yeast,"Boston Creme",12,
+                A1,coffee,venti,,2,milk;caramel
+                B7,sandwich,sourdough,salmon,1,cheese; lettuce
+                C3,donut,cake,Glazed,1,
+                C3,coffee,tall,,1,
+                D4,coffee,short,,,"whipped cream"
+                """;
+        StoreOrders store = new StoreOrders();
+        OrderImporter.Result r = OrderImporter.importFrom(new StringReader(csv), OrderImporter.Format.CSV,
+                store, null, null, 2);
+
+        assertEquals(3, r.orders());
+        assertEquals(4, r.items());
+        assertEquals(1, r.rejected());
+        assertEquals(List.of("line 5: order C3: no CAKE flavor \"Glazed\""), r.errors());
+        List<Order> orders = new ArrayList<>(store.getOrders());
+        assertEquals(3, orders.size());
+        Donut donut = (Donut) orders.get(0).getItems().get(0);
+        assertEquals("Boston Creme", donut.getFlavor());
+        assertEquals(12, donut.getQuantity());
+        assertEquals(2, ((Coffee) orders.get(0).getItems().get(1)).getAddIns().size());
+        assertEquals(2, ((Sandwich) orders.get(1).getItems().get(0)).getAddOns().size());
+        assertEquals(1, ((Coffee) orders.get(2).getItems().get(0)).getAddIns().size());
+    }
+
+    @Test
+    public void testImportsJsonLines() throws Exception {
+        String jsonl = """
+                {"items": [{"type": "coffee", "size": "grande"}, {"type": "donut", "category": "hole", "flavor": "Glazed Holes", "quantity": 24}]}
+
+                {"items": [{"type": "sandwich", "bread": "bagel", "protein": "tofu"}]}
+                {"items": [{"type": "coffee", "size": "short", "addIns": ["mocha"]}]}
+                """;
+        StoreOrders store = new StoreOrders();
+        OrderImporter.Result r = OrderImporter.importFrom(new StringReader(jsonl), OrderImporter.Format.JSONL,
+                store, null, null, 1);
+        assertEquals(2, r.orders());
+        assertEquals(3, r.items());
+        assertEquals(1, r.rejected());
+        assertTrue(r.errors().get(0).startsWith("line 3: "), r.errors().toString());
+        assertEquals(2, store.size());
+
+        assertSame(OrderImporter.Format.JSONL, OrderImporter.Format.of(Path.of("catering.JSONL")));
+        assertThrows(IllegalArgumentException.class, () -> OrderImporter.Format.of(Path.of("orders.txt")));
+    }
+
+    @Test
+    public void testCancelledImportJournalsEveryOrderItPlaced() throws Exception {
+        StringBuilder jsonl = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            jsonl.append("{\"items\": [{\"type\": \"coffee\", \"size\": \"tall\", \"quantity\": ")
+                    .append(1 + i % 5).append("}]}\n");
+        }
+        Path file = Files.createTempFile("orders", ".journal");
+        try {
+            StoreOrders store = new StoreOrders();
+            try (OrderJournal journal = OrderJournal.recover(file, store)) {
+                store.addListener(journal);
+                // Cancel as soon as the first chunk is in, as the Cancel button would
+                assertThrows(InterruptedIOException.class, () -> OrderImporter.importFrom(
+                        new StringReader(jsonl.toString()), OrderImporter.Format.JSONL, store, journal,
+                        (n, chars) -> {
+                            if (n > 0) Thread.currentThread().interrupt();
+                        }, 2));
+                Thread.interrupted();
+            }
+            assertTrue(store.size() > 0 && store.size() < 50_000, store.size() + " orders");
+
+            StoreOrders restored = new StoreOrders();
+            OrderJournal.recover(file, restored).close();
+            assertEquals(store.size(), restored.size());
+            for (Order o : store.getOrders()) assertNotNull(restored.findByNumber(o.getOrderNumber()));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLargeImportIsAddedInOneBatchPerChunk() throws Exception {
+        int orders = 100_000;
+        StringBuilder csv = new StringBuilder(orders * 100);
+        for (int i = 0; i < orders; i++) {
+            // Three lines per order, so orders straddle the chunk size
+            csv.append("R").append(i).append(",donut,yeast,Glazed,").append(1 + i % 12).append(",\n");
+            csv.append("R").append(i).append(",coffee,tall,,1,milk\n");
+            csv.append("R").append(i).append(",sandwich,wheat,beef,1,\n");
+        }
+        StoreOrders store = new StoreOrders();
+        AtomicInteger batches = new AtomicInteger();
+        store.addListener(new StoreOrders.Listener() {
+            @Override
+            public void orderAdded(Order order) {
+                throw new AssertionError("imported orders should arrive in batches");
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+            }
+
+            @Override
+            public void ordersAdded(List<Order> added) {
+                batches.incrementAndGet();
+            }
+        });
+        AtomicInteger lastProgress = new AtomicInteger();
+        OrderImporter.Result r = OrderImporter.importFrom(new StringReader(csv.toString()),
+                OrderImporter.Format.CSV, store, null, (n, chars) -> lastProgress.set(n), 4);
+
+        assertEquals(orders, r.orders());
+        assertEquals(orders * 3, r.items());
+        assertEquals(0, r.rejected());
+        assertEquals(orders, store.size());
+        assertEquals(orders, lastProgress.get());
+        int chunks = (orders * 3 + OrderImporter.CHUNK_LINES - 1) / OrderImporter.CHUNK_LINES;
+        assertTrue(batches.get() <= chunks, batches + " batches");
+        for (Order o : store.getOrders()) assertEquals(3, o.getItems().size());
+    }
+}
@@ -0,0 +1,157 @@
+package main.tests;
+
+import main.intake.OrderIntakeServer;
+import main.model.Order;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for the kiosk order intake, including a loopback load test with
+ * thousands of concurrent connections.
+ */
+public class OrderIntakeServerTest {
+
+    private static final String ORDER = """
+            {"items": [
+              {"type": "donut", "category": "yeast", "flavor": "Glazed", "quantity": 2},
+              {"type": "coffee", "size": "short", "addIns": []},
+              {"type": "sandwich", "bread": "bagel", "protein": "chicken", "addOns": ["cheese", "lettuce"]}
+            ]}""";
+    private static final Pattern NUMBER = Pattern.compile("\"orderNumber\":(\\d+)");
+
+    @Test
+    public void testPlaceAndLookUpOrder() throws Exception {
+        StoreOrders store = new StoreOrders();
+        try (OrderIntakeServer server = start(store);
+             HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> placed = post(client, server, ORDER);
+            assertEquals(201, placed.statusCode(), placed.body());
+            int number = orderNumber(placed.body());
+            assertEquals(1, store.size());
+            assertEquals(store.findByNumber(number).getTotalCents(), cents(placed.body(), "total"));
+            assertTrue(placed.body().contains("\"items\":3"), placed.body());
+
+            HttpResponse<String> found = client.send(HttpRequest.newBuilder(uri(server, "/orders/" + number)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, found.statusCode());
+            assertEquals(placed.body(), found.body());
+
+            assertEquals(404, client.send(HttpRequest.newBuilder(uri(server, "/orders/1")).build(),
+                    HttpResponse.BodyHandlers.ofString()).statusCode());
+        }
+    }
+
+    @Test
+    public void testFailureIsAnsweredWithServerError() throws Exception {
+        StoreOrders failing = new StoreOrders() {
+            @Override
+            public boolean addOrder(Order order) {
+                throw new IllegalStateException("out of order numbers");
+            }
+        };
+        try (OrderIntakeServer server = start(failing);
+             HttpClient client = HttpClient.newHttpClient()) {
+            HttpResponse<String> r = post(client, server, ORDER);
+            assertEquals(500, r.statusCode());
+            assertTrue(r.body().contains("out of order numbers"), r.body());
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidOrders() throws Exception {
+        StoreOrders store = new StoreOrders();
+        try (OrderIntakeServer server = start(store);
+             HttpClient client = HttpClient.newHttpClient()) {
+            String[] bad = {
+                    "",
+                    "{\"items\": []}",
+                    "{\"items\": [{\"type\": \"donut\", \"category\": \"cake\", \"flavor\": \"Glazed\"}]}",
+                    "{\"items\": [{\"type\": \"coffee\", \"size\": \"huge\"}]}",
+                    "{\"items\": [{\"type\": \"coffee\", \"size\": \"tall\", \"quantity\": 0}]}",
+                    "{\"items\": [{\"type\": \"bagel\"}]",
+            };
+            for (String body : bad) {
+                HttpResponse<String> r = post(client, server, body);
+                assertEquals(400, r.statusCode(), body);
+                assertTrue(r.body().startsWith("{\"error\":"), r.body());
+            }
+            assertEquals(413, post(client, server, " ".repeat(OrderIntakeServer.MAX_BODY + 1)).statusCode());
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testThousandsOfConcurrentKiosksOverLoopback() throws Exception {
+        int clients = 2_000;
+        StoreOrders store = new StoreOrders();
+        try (OrderIntakeServer server = start(store);
+             ExecutorService kiosks = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(kiosks).build()) {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                responses.add(kiosks.submit(() -> {
+                    go.await();
+                    return post(client, server, ORDER);
+                }));
+            }
+            go.countDown();
+            Set<Integer> numbers = new HashSet<>();
+            for (Future<HttpResponse<String>> f : responses) {
+                HttpResponse<String> r = f.get();
+                assertEquals(201, r.statusCode(), r.body());
+                numbers.add(orderNumber(r.body()));
+            }
+            assertEquals(clients, numbers.size());
+            assertEquals(clients, store.size());
+        }
+    }
+
+    private static OrderIntakeServer start(StoreOrders store) throws Exception {
+        return OrderIntakeServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), store, null, null);
+    }
+
+    private static URI uri(OrderIntakeServer server, String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    private static HttpResponse<String> post(HttpClient client, OrderIntakeServer server, String body)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(server, "/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int orderNumber(String json) {
+        Matcher m = NUMBER.matcher(json);
+        assertTrue(m.find(), json);
+        return Integer.parseInt(m.group(1));
+    }
+
+    private static long cents(String json, String field) {
+        Matcher m = Pattern.compile("\"" + field + "\":\"(\\d+)\\.(\\d\\d)\"").matcher(json);
+        assertTrue(m.find(), json);
+        return Long.parseLong(m.group(1)) * 100 + Long.parseLong(m.group(2));
+    }
+}
@@ -0,0 +1,208 @@
+package main.tests;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Order;
+import main.model.OrderJournal;
+import main.model.OrderNumbers;
+import main.model.Sandwich;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for journaling orders and rebuilding StoreOrders from the journal.
+ */
+public class OrderJournalTest {
+
+    @Test
+    public void testReplayRestoresPlacedAndCancelledOrders() throws Exception {
+        Path file = Files.createTempFile("orders", ".journal");
+        try {
+            StoreOrders store = new StoreOrders();
+            Order a = sampleOrder(1);
+            Order b = sampleOrder(2);
+            Order c = sampleOrder(3);
+            try (OrderJournal journal = OrderJournal.recover(file, store)) {
+                // The journal records the store's changes as a listener, under the store's lock
+                store.addListener(journal);
+                for (Order o : List.of(a, b, c)) store.addOrder(o);
+                store.cancelByNumber(b.getOrderNumber());
+                journal.flushed().get();
+            }
+
+            StoreOrders restored = new StoreOrders();
+            OrderJournal.recover(file, restored).close();
+
+            assertEquals(store.export(), restored.export());
+            assertNull(restored.findByNumber(b.getOrderNumber()));
+            assertEquals(a.getPlacedAt(), restored.findByNumber(a.getOrderNumber()).getPlacedAt());
+            // New orders are numbered after everything restored
+            assertTrue(new Order().getOrderNumber() > c.getOrderNumber());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testTornTailIsDropped() throws Exception {
+        Path file = Files.createTempFile("orders", ".journal");
+        try {
+            StoreOrders store = new StoreOrders();
+            Order a = sampleOrder(1);
+            try (OrderJournal journal = OrderJournal.recover(file, store)) {
+                store.addOrder(a);
+                journal.orderPlaced(a).get();
+            }
+            long good = Files.size(file);
+            // Simulate a crash in the middle of writing the next record
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.APPEND)) {
+                ch.write(java.nio.ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+            }
+
+            StoreOrders restored = new StoreOrders();
+            Order b = sampleOrder(2);
+            try (OrderJournal journal = OrderJournal.recover(file, restored)) {
+                assertEquals(good, Files.size(file));
+                restored.addOrder(b);
+                journal.orderPlaced(b).get();
+            }
+
+            StoreOrders again = new StoreOrders();
+            OrderJournal.recover(file, again).close();
+            assertEquals(2, again.size());
+            assertEquals(restored.export(), again.export());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testEarlierDaysAreNotRestored() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        LocalDate today = LocalDate.now();
+        try {
+            StoreOrders yesterday = new StoreOrders();
+            Order old = sampleOrder(1);
+            try (OrderJournal journal = OrderJournal.openDay(dir, today.minusDays(1), yesterday)) {
+                yesterday.addListener(journal);
+                yesterday.addOrder(old);
+                journal.flushed().get();
+            }
+
+            StoreOrders store = new StoreOrders();
+            Order fresh = sampleOrder(2);
+            try (OrderJournal journal = OrderJournal.openDay(dir, today, store)) {
+                assertEquals(0, store.size());
+                store.addListener(journal);
+                store.addOrder(fresh);
+                journal.flushed().get();
+            }
+
+            StoreOrders restored = new StoreOrders();
+            OrderJournal.openDay(dir, today, restored).close();
+            assertEquals(1, restored.size());
+            assertNull(restored.findByNumber(old.getOrderNumber()));
+            assertEquals(fresh.getPlacedAt(), restored.findByNumber(fresh.getOrderNumber()).getPlacedAt());
+            // Yesterday's journal is kept as it was
+            StoreOrders kept = new StoreOrders();
+            OrderJournal.openDay(dir, today.minusDays(1), kept).close();
+            assertEquals(yesterday.export(), kept.export());
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : files.toList()) Files.delete(f);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testClearingTheStoreEmptiesTheJournal() throws Exception {
+        Path file = Files.createTempFile("orders", ".journal");
+        try {
+            StoreOrders store = new StoreOrders();
+            Order closedOut = sampleOrder(1);
+            Order next = sampleOrder(2);
+            try (OrderJournal journal = OrderJournal.recover(file, store)) {
+                store.addListener(journal);
+                store.addOrder(closedOut);
+                assertEquals(List.of(closedOut), new ArrayList<>(store.clear()));
+                assertEquals(0, store.size());
+                store.addOrder(next);
+                journal.flushed().get();
+            }
+
+            StoreOrders restored = new StoreOrders();
+            OrderJournal.recover(file, restored).close();
+            assertEquals(1, restored.size());
+            assertNull(restored.findByNumber(closedOut.getOrderNumber()));
+            assertEquals(store.export(), restored.export());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReplayingADayOfOrders() throws Exception {
+        Path file = Files.createTempFile("orders", ".journal");
+        int orders = 100_000;
+        try {
+            StoreOrders store = new StoreOrders();
+            OrderNumbers.Block numbers = OrderNumbers.reserve(1024);
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            try (OrderJournal journal = OrderJournal.recover(file, store)) {
+                for (int i = 0; i < orders; i++) {
+                    Order o = new Order(numbers);
+                    fill(o, i);
+                    store.addOrder(o);
+                    writes.add(journal.orderPlaced(o));
+                }
+                CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).get();
+            }
+
+            // How long this takes is measured by JournalBenchmark
+            StoreOrders restored = new StoreOrders();
+            OrderJournal.recover(file, restored).close();
+            assertEquals(orders, restored.size());
+            assertEquals(store.export(), restored.export());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Order sampleOrder(int seed) {
+        Order o = new Order();
+        fill(o, seed);
+        return o;
+    }
+
+    private static void fill(Order o, int seed) {
+        o.addItem(new Donut(DonutCategory.values()[seed % 4], "Glazed", 1 + seed % 12));
+        Coffee c = new Coffee(CupSize.values()[seed % 4], 1 + seed % 3);
+        if (seed % 2 == 0) c.addAddIn(AddIns.MILK);
+        if (seed % 3 == 0) c.addAddIn(AddIns.MOCHA);
+        o.addItem(c);
+        Sandwich s = new Sandwich(Bread.values()[seed % 3], Protein.values()[seed % 3], 1);
+        if (seed % 2 == 1) s.addAddOn(AddOns.CHEESE);
+        s.addAddOn(AddOns.ONIONS);
+        o.addItem(s);
+    }
+}
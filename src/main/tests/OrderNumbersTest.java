@@ -0,0 +1,69 @@
+package main.tests;
+
+import main.model.Order;
+import main.model.OrderNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Concurrency tests for order number allocation.
+ */
+public class OrderNumbersTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 500_000;
+
+    @Test
+    public void testNumbersStayUniqueAcrossThreads() throws Exception {
+        // Half the threads take numbers one at a time, half draw from blocks
+        int[][] seen = new int[THREADS][ORDERS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int[] mine = seen[t];
+            boolean useBlock = t % 2 == 0;
+            threads[t] = new Thread(() -> {
+                OrderNumbers.Block block = OrderNumbers.reserve(64);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    Order o = useBlock ? new Order(block) : new Order();
+                    mine[i] = o.getOrderNumber();
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread t : threads) t.join();
+
+        BitSet used = new BitSet();
+        int count = 0;
+        for (int[] mine : seen) {
+            for (int n : mine) {
+                assertTrue(n >= OrderNumbers.FIRST, "number below FIRST: " + n);
+                assertFalse(used.get(n), "duplicate order number " + n);
+                used.set(n);
+                count++;
+            }
+        }
+        assertEquals(THREADS * ORDERS_PER_THREAD, count);
+    }
+
+    @Test
+    public void testBlockHandsOutConsecutiveNumbers() {
+        OrderNumbers.Block block = OrderNumbers.reserve(3);
+        int first = block.next();
+        assertEquals(first + 1, block.next());
+        assertEquals(first + 2, block.next());
+        // The next run comes from a fresh reservation, so it starts past the first one
+        assertTrue(block.next() > first + 2);
+    }
+}
@@ -0,0 +1,126 @@
+package main.tests;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.MenuItem;
+import main.model.Money;
+import main.model.Order;
+import main.model.Sandwich;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/**
+ * Unit tests for the running totals kept by Order.
+ */
+public class OrderTest {
+
+    @Test
+    public void testTotalsFollowAddAndRemove() {
+        // Yeast 2 x 1.99 = 3.98, Short coffee 2.39 → subtotal 6.37
+        // Tax 6.37 * 0.06625 = 0.422 → 0.42, total 6.79
+        Order o = new Order();
+        Donut d = new Donut(DonutCategory.YEAST, "Glazed", 2);
+        Coffee c = new Coffee(CupSize.SHORT, 1);
+        o.addItem(d);
+        o.addItem(c);
+
+        assertEquals(6.37, o.getSubtotal(), 0.001);
+        assertEquals(0.42, o.getTax(), 0.001);
+        assertEquals(6.79, o.getTotal(), 0.001);
+
+        o.removeItem(d);
+        assertEquals(2.39, o.getSubtotal(), 0.001);
+
+        o.clear();
+        assertEquals(0.0, o.getTotal(), 0.001);
+    }
+
+    @Test
+    public void testTotalsFollowItemChanges() {
+        Order o = new Order();
+        Coffee c = new Coffee(CupSize.SHORT, 1);
+        Sandwich s = new Sandwich(Bread.WHEAT, Protein.CHICKEN, 1);
+        o.addItem(c);
+        o.addItem(s);
+
+        c.setSize(CupSize.VENTI);
+        c.addAddIn(AddIns.MOCHA);
+        c.setQuantity(3);
+        s.addAddOn(AddOns.CHEESE);
+        s.setProtein(Protein.SALMON);
+        assertEquals(recomputedSubtotal(o), o.getSubtotal(), 0.001);
+
+        // Changes to an item after it leaves the order must not move the totals
+        o.removeItem(c);
+        c.setQuantity(5);
+        assertEquals(s.price(), o.getSubtotal(), 0.001);
+    }
+
+    @Test
+    public void testTaxRoundsHalfCentUp() {
+        // Yeast 73 x 1.99 = 145.27, holes 7 x 0.39 = 2.73 → subtotal 148.00
+        // Tax 148.00 * 0.06625 = 9.805 exactly → 9.81, total 157.81
+        Order o = new Order();
+        o.addItem(new Donut(DonutCategory.YEAST, "Glazed", 73));
+        o.addItem(new Donut(DonutCategory.HOLE, "Glazed Holes", 7));
+
+        assertEquals(14800, o.getSubtotalCents());
+        assertEquals(981, o.getTaxCents());
+        assertEquals(15781, o.getTotalCents());
+        assertEquals("157.81", Money.format(o.getTotalCents()));
+    }
+
+    @Test
+    public void testMoneyFormat() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("12.30", Money.format(1230));
+        assertEquals("-1.07", Money.format(-107));
+    }
+
+    @Test
+    public void testListenerSeesEachChange() {
+        Order o = new Order();
+        Donut d = new Donut(DonutCategory.YEAST, "Glazed", 1);
+        Coffee c = new Coffee(CupSize.SHORT, 1);
+        List<String> events = new ArrayList<>();
+        o.addListener(new Order.Listener() {
+            @Override
+            public void itemAdded(int index, MenuItem item) {
+                events.add("+" + index + " " + Money.format(o.getSubtotalCents()));
+            }
+
+            @Override
+            public void itemRemoved(int index, MenuItem item) {
+                events.add("-" + index + " " + Money.format(o.getSubtotalCents()));
+            }
+
+            @Override
+            public void cleared() {
+                events.add("clear " + o.getItems().size());
+            }
+        });
+        o.addItem(d);
+        o.addItem(c);
+        o.removeItem(d);
+        o.removeItem(d); // not in the order any more: no event
+        o.clear();
+
+        assertEquals(List.of("+0 1.99", "+1 4.38", "-0 2.39", "clear 0"), events);
+    }
+
+    private static double recomputedSubtotal(Order o) {
+        double sum = 0.0;
+        for (MenuItem m : o.getItems()) sum += m.price();
+        return sum;
+    }
+}
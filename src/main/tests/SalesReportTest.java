@@ -0,0 +1,97 @@
+package main.tests;
+
+import main.enums.AddIns;
+import main.enums.AddOns;
+import main.enums.Bread;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.enums.Protein;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.SalesReport;
+import main.model.Sandwich;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/**
+ * Tests for the end-of-day sales report.
+ */
+public class SalesReportTest {
+
+    private static final String[] FLAVORS = {"Glazed", "Jelly", "Boston Kreme", "Chocolate", "Pumpkin Spice"};
+
+    @Test
+    public void testBreakdownsOfASmallDay() {
+        Order a = new Order();
+        a.addItem(new Donut(DonutCategory.YEAST, "Glazed", 2));             // 3.98
+        Coffee c = new Coffee(CupSize.TALL, 2);                             // (2.99 + 0.50) x 2
+        c.addAddIn(AddIns.MILK);
+        c.addAddIn(AddIns.CARAMEL);
+        a.addItem(c);
+        Order b = new Order();
+        b.addItem(new Donut(DonutCategory.HOLE, "Glazed", 12));             // 4.68
+        Sandwich s = new Sandwich(Bread.BAGEL, Protein.SALMON, 1);          // 14.99 + 1.00 + 0.30
+        s.addAddOn(AddOns.CHEESE);
+        s.addAddOn(AddOns.LETTUCE);
+        b.addItem(s);
+        StoreOrders store = new StoreOrders();
+        store.addOrder(a);
+        store.addOrder(b);
+
+        SalesReport r = SalesReport.sequential(store.getOrders());
+        assertEquals(2, r.getOrderCount());
+        assertEquals(a.getSubtotalCents() + b.getSubtotalCents(), r.getSubtotalCents());
+        assertEquals(a.getTaxCents() + b.getTaxCents(), r.getTaxCents());
+        assertEquals((a.getTotalCents() + b.getTotalCents() + 1) / 2, r.getAverageTicketCents());
+        assertEquals(new SalesReport.Line(2, 398), r.byDonutCategory().get(DonutCategory.YEAST));
+        assertEquals(new SalesReport.Line(12, 468), r.byDonutCategory().get(DonutCategory.HOLE));
+        assertEquals(new SalesReport.Line(14, 866), r.byFlavor().get("Glazed"));
+        assertEquals(new SalesReport.Line(2, 698), r.byCupSize().get(CupSize.TALL));
+        assertEquals(new SalesReport.Line(2, 50), r.byAddIn().get(AddIns.CARAMEL));
+        assertEquals(new SalesReport.Line(0, 0), r.byAddIn().get(AddIns.WHIPPED_CREAM));
+        assertEquals(new SalesReport.Line(1, 1629), r.byProtein().get(Protein.SALMON));
+        assertEquals(new SalesReport.Line(1, 1629), r.byBread().get(Bread.BAGEL));
+        assertEquals(new SalesReport.Line(1, 100), r.byAddOn().get(AddOns.CHEESE));
+        assertEquals(new SalesReport.Line(1, 30), r.byAddOn().get(AddOns.LETTUCE));
+        assertEquals(r, SalesReport.parallel(store.getOrders()));
+        assertEquals(r, SalesReport.sequential(List.of(a, b)));
+    }
+
+    @Test
+    public void testParallelMatchesSequentialOnManyOrders() {
+        StoreOrders store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(4096);
+        for (int i = 0; i < 50_000; i++) {
+            Order o = new Order(numbers);
+            o.addItem(new Donut(DonutCategory.values()[i % 4], FLAVORS[i % FLAVORS.length], 1 + i % 12));
+            if (i % 2 == 0) {
+                Coffee c = new Coffee(CupSize.values()[i % 4], 1 + i % 3);
+                if (i % 6 == 0) c.addAddIn(AddIns.values()[i % AddIns.values().length]);
+                o.addItem(c);
+            }
+            if (i % 5 == 0) {
+                Sandwich s = new Sandwich(Bread.values()[i % 3], Protein.values()[i % 3], 1);
+                s.addAddOn(AddOns.values()[i % 4]);
+                o.addItem(s);
+            }
+            store.addOrder(o);
+        }
+
+        // Timing the two is left to SalesReportBenchmark
+        SalesReport sequential = SalesReport.sequential(store.getOrders());
+        SalesReport parallel = SalesReport.parallel(store.getOrders());
+        assertEquals(sequential, parallel);
+        assertEquals(sequential.toString(), parallel.toString());
+        assertEquals(50_000, sequential.getOrderCount());
+        long units = 0;
+        for (SalesReport.Line line : sequential.byFlavor().values()) units += line.units();
+        long categoryUnits = 0;
+        for (SalesReport.Line line : sequential.byDonutCategory().values()) categoryUnits += line.units();
+        assertEquals(categoryUnits, units);
+    }
+}
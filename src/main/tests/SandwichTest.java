@@ -46,4 +46,32 @@ public class SandwichTest {
 
         assertEquals(expected, actual, 0.01);
     }
+
+    @Test
+    public void testPriceTableMatchesFormulaForEveryCombination() {
+        // Every protein x every subset of add-ons x a few quantities:
+        // (protein base + 1.00 cheese + 0.30 per other add-on) * quantity
+        AddOns[] all = AddOns.values();
+        for (Protein protein : Protein.values()) {
+            long base = switch (protein) {
+                case BEEF -> 1299;
+                case CHICKEN -> 1099;
+                case SALMON -> 1499;
+            };
+            for (int mask = 0; mask < 1 << all.length; mask++) {
+                for (int qty = 1; qty <= 3; qty++) {
+                    Sandwich s = new Sandwich(Bread.WHEAT, protein, qty);
+                    long extras = 0;
+                    for (AddOns a : all) {
+                        if ((mask & 1 << a.ordinal()) != 0) {
+                            s.addAddOn(a);
+                            extras += a == AddOns.CHEESE ? 100 : 30;
+                        }
+                    }
+                    long expected = (base + extras) * qty;
+                    assertEquals(expected, s.priceCents(), protein + " mask " + mask + " x" + qty);
+                }
+            }
+        }
+    }
 }
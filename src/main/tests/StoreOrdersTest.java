@@ -0,0 +1,399 @@
+package main.tests;
+
+import main.enums.AddIns;
+import main.enums.CupSize;
+import main.enums.DonutCategory;
+import main.model.Coffee;
+import main.model.Donut;
+import main.model.MenuItem;
+import main.model.Order;
+import main.model.OrderNumbers;
+import main.model.StoreOrders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/**
+ * Tests for StoreOrders, including multi-register stress tests.
+ */
+public class StoreOrdersTest {
+
+    private static final int TOTAL_ORDERS = 400_000;
+
+    @Test
+    public void testFindAndCancelByNumber() {
+        StoreOrders store = new StoreOrders();
+        Order a = order(OrderNumbers.reserve(1));
+        Order b = order(OrderNumbers.reserve(1));
+        assertTrue(store.addOrder(a));
+        assertTrue(store.addOrder(b));
+        assertFalse(store.addOrder(a));
+
+        assertSame(b, store.findByNumber(b.getOrderNumber()));
+        assertSame(a, store.cancelByNumber(a.getOrderNumber()));
+        assertNull(store.findByNumber(a.getOrderNumber()));
+        assertNull(store.cancelByNumber(a.getOrderNumber()));
+        assertEquals(List.of(b), new ArrayList<>(store.getOrders()));
+    }
+
+    @Test
+    public void testClearRemovesEveryOrderAtOnce() {
+        StoreOrders store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(3);
+        Order a = order(numbers);
+        Order b = order(numbers);
+        store.addOrder(a);
+        store.addOrder(b);
+        Collection<Order> before = store.getOrders();
+        List<Order> removed = new ArrayList<>();
+        store.addListener(new StoreOrders.Listener() {
+            @Override
+            public void orderAdded(Order order) {
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+                removed.add(order);
+            }
+        });
+
+        assertEquals(List.of(a, b), new ArrayList<>(store.clear()));
+        assertEquals(List.of(a, b), removed);
+        assertEquals(0, store.size());
+        assertNull(store.findByNumber(a.getOrderNumber()));
+        assertEquals(List.of(a, b), new ArrayList<>(before));
+        assertEquals(a.getTotalCents(), before.iterator().next().getTotalCents());
+
+        Order c = order(numbers);
+        assertTrue(store.addOrder(c));
+        assertEquals(List.of(c), new ArrayList<>(store.getOrders()));
+    }
+
+    @Test
+    public void testClearIfUnchangedKeepsOrdersPlacedSinceTheSnapshot() {
+        StoreOrders store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(3);
+        Order a = order(numbers);
+        store.addOrder(a);
+        Collection<Order> archived = store.getOrders();
+        Order late = order(numbers);
+        store.addOrder(late);
+
+        assertFalse(store.clearIfUnchanged(archived));
+        assertFalse(store.clearIfUnchanged(List.of(a, late)));
+        assertEquals(List.of(a, late), new ArrayList<>(store.getOrders()));
+
+        Collection<Order> again = store.getOrders();
+        assertTrue(store.clearIfUnchanged(again));
+        assertEquals(0, store.size());
+        assertEquals(List.of(a, late), new ArrayList<>(again));
+    }
+
+    @Test
+    public void testAddOrdersPublishesOneBatch() {
+        StoreOrders store = new StoreOrders();
+        Order existing = order(OrderNumbers.reserve(1));
+        store.addOrder(existing);
+        Collection<Order> before = store.getOrders();
+
+        OrderNumbers.Block numbers = OrderNumbers.reserve(10_000);
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) batch.add(order(numbers));
+        batch.add(existing);
+        batch.add(batch.get(0));
+        List<List<Order>> told = new ArrayList<>();
+        store.addListener(new StoreOrders.Listener() {
+            @Override
+            public void orderAdded(Order order) {
+                told.add(List.of(order));
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+            }
+
+            @Override
+            public void ordersAdded(List<Order> orders) {
+                told.add(orders);
+            }
+        });
+
+        assertEquals(10_000, store.addOrders(batch));
+        assertEquals(1, told.size());
+        assertEquals(batch.subList(0, 10_000), told.get(0));
+        assertEquals(10_001, store.size());
+        assertTrue(batch.get(9_999).isFrozen());
+        assertSame(batch.get(5_000), store.findByNumber(batch.get(5_000).getOrderNumber()));
+        assertEquals(1, before.size()); // earlier snapshots are unaffected
+        assertEquals(0, store.addOrders(List.of(existing)));
+    }
+
+    @Test
+    public void testPlacedOrderIsFrozen() {
+        Order o = new Order(OrderNumbers.reserve(1));
+        Donut donut = new Donut(DonutCategory.CAKE, new String("Glazed"), 3);
+        Coffee coffee = new Coffee(CupSize.GRANDE, 2);
+        coffee.addAddIn(AddIns.CARAMEL);
+        o.addItem(donut);
+        o.addItem(coffee);
+        String before = o.toExportLine();
+        long total = o.getTotalCents();
+
+        StoreOrders store = new StoreOrders();
+        assertFalse(o.isFrozen());
+        store.addOrder(o);
+        assertTrue(o.isFrozen());
+        assertEquals(before, o.toExportLine());
+        assertEquals(total, o.getTotalCents());
+
+        // The original items are detached and the order rejects changes
+        coffee.setQuantity(10);
+        donut.setQuantity(10);
+        assertEquals(before, o.toExportLine());
+        assertEquals(total, o.getTotalCents());
+        assertThrows(IllegalStateException.class, () -> o.addItem(new Coffee(CupSize.SHORT, 1)));
+        assertThrows(IllegalStateException.class, () -> o.removeItem(o.getItems().get(0)));
+        assertThrows(IllegalStateException.class, o::clear);
+        assertThrows(UnsupportedOperationException.class, () -> o.getItems().remove(0));
+
+        // Items read back share one flavor string and are copies
+        MenuItem first = o.getItems().get(0);
+        Donut again = (Donut) o.getItems().get(0);
+        assertSame(((Donut) first).getFlavor(), again.getFlavor());
+        first.setQuantity(1);
+        assertEquals(before, o.toExportLine());
+    }
+
+    @Test
+    public void testListenerSeesEveryChangeAfterItsSnapshot() throws Exception {
+        StoreOrders store = new StoreOrders();
+        int registers = 4;
+        int perRegister = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < registers; r++) {
+            Thread t = new Thread(() -> {
+                OrderNumbers.Block numbers = OrderNumbers.reserve(256);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perRegister; i++) {
+                    Order o = order(numbers);
+                    store.addOrder(o);
+                    if (i % 3 == 0) store.cancelByNumber(o.getOrderNumber());
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        start.countDown();
+        while (store.size() < 10_000) Thread.onSpinWait();
+
+        // Register mid-stream. Like the store-orders view, queue the events and apply
+        // them after the snapshot; together they must give the final state.
+        ConcurrentLinkedQueue<Map.Entry<Order, Boolean>> events = new ConcurrentLinkedQueue<>();
+        StoreOrders.Listener listener = new StoreOrders.Listener() {
+            @Override
+            public void orderAdded(Order order) {
+                events.add(Map.entry(order, true));
+            }
+
+            @Override
+            public void orderRemoved(Order order) {
+                events.add(Map.entry(order, false));
+            }
+        };
+        Set<Order> mirror = new HashSet<>(store.addListener(listener));
+        for (Thread t : threads) t.join();
+        boolean consistent = true;
+        for (Map.Entry<Order, Boolean> event : events) {
+            consistent &= event.getValue() ? mirror.add(event.getKey()) : mirror.remove(event.getKey());
+        }
+
+        assertTrue(consistent);
+        assertEquals(new HashSet<>(store.getOrders()), mirror);
+        store.removeListener(listener);
+        Order late = order(OrderNumbers.reserve(1));
+        store.addOrder(late);
+        assertFalse(events.contains(Map.entry(late, true)));
+    }
+
+    @Test
+    public void testExportToFileReportsProgressAndKeepsOldFileWhenCancelled() throws IOException {
+        StoreOrders store = new StoreOrders();
+        for (int i = 0; i < 50; i++) store.addOrder(order(OrderNumbers.reserve(1)));
+        Path dir = Files.createTempDirectory("export");
+        Path file = dir.resolve("StoreOrders.txt");
+        try {
+            List<Integer> progress = new ArrayList<>();
+            assertEquals(50, store.exportTo(file, (written, total) -> {
+                assertEquals(50, total);
+                progress.add(written);
+            }));
+            assertEquals(50, progress.size());
+            assertEquals(50, (int) progress.get(49));
+            assertEquals(store.export(), Files.readString(file, StandardCharsets.UTF_8));
+
+            // Cancel part-way through a second export: the first one must survive
+            store.addOrder(order(OrderNumbers.reserve(1)));
+            assertThrows(InterruptedIOException.class, () -> store.exportTo(file, (written, total) -> {
+                if (written == 10) Thread.currentThread().interrupt();
+            }));
+            assertTrue(Thread.interrupted());
+            assertEquals(50, progress.size());
+            assertFalse(store.export().equals(Files.readString(file, StandardCharsets.UTF_8)));
+            assertFalse(Files.exists(dir.resolve("StoreOrders.txt.tmp")));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testSnapshotSurvivesCancelsAndCompaction() {
+        StoreOrders store = new StoreOrders();
+        OrderNumbers.Block numbers = OrderNumbers.reserve(1024);
+        List<Order> placed = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Order o = order(numbers);
+            placed.add(o);
+            store.addOrder(o);
+        }
+        Collection<Order> before = store.getOrders();
+
+        // Cancel three out of four orders, enough to force the log to compact
+        List<Order> kept = new ArrayList<>();
+        for (int i = 0; i < placed.size(); i++) {
+            if (i % 4 == 0) kept.add(placed.get(i));
+            else store.cancelByNumber(placed.get(i).getOrderNumber());
+        }
+
+        assertEquals(placed, new ArrayList<>(before));
+        assertEquals(kept, new ArrayList<>(store.getOrders()));
+        assertEquals(kept.size(), store.size());
+
+        Order late = order(numbers);
+        store.addOrder(late);
+        assertSame(late, store.findByNumber(late.getOrderNumber()));
+        assertEquals(kept.size() + 1, store.getOrders().size());
+    }
+
+    @Test
+    public void testPlacementAcrossRegisterCounts() throws Exception {
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            StoreOrders store = new StoreOrders();
+            Order[][] work = new Order[threads][TOTAL_ORDERS / threads];
+            for (Order[] register : work) {
+                OrderNumbers.Block numbers = OrderNumbers.reserve(256);
+                for (int i = 0; i < register.length; i++) register[i] = order(numbers);
+            }
+
+            runRegisters(work, store::addOrder);
+
+            int placed = threads * (TOTAL_ORDERS / threads);
+            assertEquals(placed, store.size());
+            assertEquals(placed, countOf(store.getOrders()));
+            for (Order[] register : work) {
+                for (Order o : register) assertSame(o, store.findByNumber(o.getOrderNumber()));
+            }
+        }
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshotsWhileRegistersWrite() throws Exception {
+        StoreOrders store = new StoreOrders();
+        int threads = 4;
+        Order[][] work = new Order[threads][50_000];
+        for (Order[] register : work) {
+            OrderNumbers.Block numbers = OrderNumbers.reserve(256);
+            for (int i = 0; i < register.length; i++) register[i] = order(numbers);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                Collection<Order> snapshot = store.getOrders();
+                Set<Integer> seen = new HashSet<>();
+                for (Order o : snapshot) {
+                    if (!seen.add(o.getOrderNumber())) failure.set("duplicate " + o.getOrderNumber());
+                }
+                if (seen.size() != snapshot.size()) {
+                    failure.set("snapshot iterated " + seen.size() + " orders but reports " + snapshot.size());
+                }
+            }
+        });
+        reader.start();
+
+        // Each register places its orders and cancels every other one it placed
+        runRegisters(work, o -> {
+            store.addOrder(o);
+            if (o.getOrderNumber() % 2 == 0) store.cancelByNumber(o.getOrderNumber());
+        });
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(countOf(store.getOrders()), store.size());
+    }
+
+    /**
+     * Runs one thread per register, each feeding its orders to {@code place},
+     * all starting together, and waits for them to finish.
+     */
+    private static void runRegisters(Order[][] work, java.util.function.Consumer<Order> place)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(work.length);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] registers = new Thread[work.length];
+        for (int t = 0; t < work.length; t++) {
+            Order[] mine = work[t];
+            registers[t] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (Order o : mine) place.accept(o);
+            });
+            registers[t].start();
+        }
+        ready.await();
+        start.countDown();
+        for (Thread t : registers) t.join();
+    }
+
+    private static int countOf(Collection<Order> orders) {
+        int n = 0;
+        for (Order ignored : orders) n++;
+        return n;
+    }
+
+    private static Order order(OrderNumbers.Block numbers) {
+        Order o = new Order(numbers);
+        o.addItem(new Donut(DonutCategory.YEAST, "Glazed", 1));
+        return o;
+    }
+}
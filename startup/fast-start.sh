@@ -0,0 +1,33 @@
+#!/bin/sh
+# Launches the app in fast-start mode, with a class-data-sharing (AppCDS)
+# archive of the classes loaded while starting up and opening each view.
+# Usage: startup/fast-start.sh [--train]
+# The archive is made by a training run on first use, whenever a source file
+# is newer than it, or with --train. It is specific to the JDK and JavaFX
+# build it was made with, so it is built locally rather than checked in.
+# JAVAFX_LIB points at the JavaFX SDK's lib directory (default: the one in
+# this repository). Every start is timed and appended to
+# startup/startup-times.csv.
+set -e
+cd "$(dirname "$0")/.."
+
+ROOT=$(pwd)
+FX=${JAVAFX_LIB:-$ROOT/javafx-sdk-21.0.9/lib}
+OUT=$ROOT/startup/out
+JAR=$OUT/rucafe.jar
+JSA=$OUT/rucafe.jsa
+JAVA_ARGS="--module-path $FX --add-modules javafx.controls,javafx.fxml -cp $JAR
+    -Drucafe.startup.log=$ROOT/startup/startup-times.csv"
+
+if [ "$1" = "--train" ] || [ ! -f "$JSA" ] || [ -n "$(find src -newer "$JSA" -print -quit)" ]; then
+    rm -rf "$OUT" && mkdir -p "$OUT/classes" "$OUT/train"
+    javac -d "$OUT/classes" --module-path "$FX" --add-modules javafx.controls,javafx.fxml \
+        $(find src/main -path src/main/tests -prune -o -name '*.java' -print)
+    cp -r src/resources/. "$OUT/classes/"
+    # CDS only archives application classes loaded from a jar
+    jar --create --file "$JAR" -C "$OUT/classes" .
+    # Train in a scratch directory so the real order journal is not touched
+    (cd "$OUT/train" && java $JAVA_ARGS -XX:ArchiveClassesAtExit="$JSA" \
+        -Drucafe.startup.mode=train -Drucafe.startup.train=true main.Main)
+fi
+exec java $JAVA_ARGS -XX:SharedArchiveFile="$JSA" -Drucafe.startup.mode=fast main.Main